@@ -0,0 +1,161 @@
+package net.roguelogix.biggerreactors.multiblocks.reactor.simulation;
+
+import net.roguelogix.phosphophyllite.serialization.PhosphophylliteCompound;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs the same tick sequence through every available backend and reports how far each one drifts from the full pass reference
+ * Run with `gradlew compareReactorBackends -Pargs="<description file or design> [ticks] [passive|active] [--csv file]"`
+ * Description files are the ROBN bytes of {@link SimulationDescription#save()}
+ * The multithreaded backends apply irradiation a tick late, expect them to diverge most in the first ticks
+ * Exits with 1 if a backend that has to match the full pass exactly doesn't
+ */
+public class ReactorBackendComparator {
+    
+    private static final String[] QUANTITIES = {"fuelHeat", "stackHeat", "output", "fuelBurn"};
+    
+    private record Run(SimulationBackends backend, double[][] values, long[] tickNanos) {
+    }
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("usage: <description file | " + List.of(ReactorDesigns.values()) + "> [ticks] [passive|active] [--csv file]");
+            return;
+        }
+        int ticks = 1200;
+        boolean passive = true;
+        Path csvFile = null;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "passive" -> passive = true;
+                case "active" -> passive = false;
+                case "--csv" -> csvFile = Path.of(args[++i]);
+                default -> ticks = Integer.parseInt(args[i]);
+            }
+        }
+        
+        final var description = loadDescription(args[0]);
+        final var configuration = new SimulationConfiguration(293.15, passive);
+        System.out.printf("%s, %dx%dx%d, %d ticks, %s%n", args[0], description.x(), description.y(), description.z(), ticks, passive ? "passive" : "active");
+        
+        final var runs = new ArrayList<Run>();
+        for (final var backend : SimulationBackends.values()) {
+            if (!backend.available()) {
+                System.out.printf("%-24s unavailable%n", backend);
+                continue;
+            }
+            runs.add(run(backend, description, configuration, ticks));
+        }
+        
+        // full pass is always available, and first
+        final var reference = runs.get(0);
+        System.out.printf("%-24s %12s", "backend", "ns/tick");
+        for (final var quantity : QUANTITIES) {
+            System.out.printf(" %12s %12s", quantity + " max", "mean");
+        }
+        System.out.println();
+        boolean exactMismatch = false;
+        for (final var run : runs) {
+            System.out.printf("%-24s %12d", run.backend, median(run.tickNanos));
+            for (int q = 0; q < QUANTITIES.length; q++) {
+                double max = 0;
+                double sum = 0;
+                for (int t = 0; t < ticks; t++) {
+                    final double divergence = relativeDivergence(run.values[q][t], reference.values[q][t]);
+                    max = Math.max(max, divergence);
+                    sum += divergence;
+                }
+                System.out.printf(" %12.3e %12.3e", max, sum / ticks);
+                exactMismatch |= run.backend.exact() && max != 0;
+            }
+            System.out.println();
+        }
+        
+        if (csvFile != null) {
+            writeCSV(csvFile, runs, ticks);
+            System.out.println("per tick values written to " + csvFile);
+        }
+        
+        if (exactMismatch) {
+            System.out.println("a backend that has to match the full pass exactly diverged from it");
+            System.exit(1);
+        }
+    }
+    
+    private static SimulationDescription loadDescription(String source) throws IOException {
+        for (final var design : ReactorDesigns.values()) {
+            if (design.name().equalsIgnoreCase(source)) {
+                return design.description();
+            }
+        }
+        return new SimulationDescription(new PhosphophylliteCompound(Files.readAllBytes(Path.of(source))));
+    }
+    
+    private static Run run(SimulationBackends backend, SimulationDescription description, SimulationConfiguration configuration, int ticks) {
+        final var simulation = backend.create(description, configuration);
+        ReactorDesigns.fill(simulation);
+        final var values = new double[QUANTITIES.length][ticks];
+        final var tickNanos = new long[ticks];
+        for (int t = 0; t < ticks; t++) {
+            ReactorDesigns.refill(simulation);
+            final long start = System.nanoTime();
+            simulation.tick(true);
+            // async backends are done with the tick once they are ready for the next one
+            while (!simulation.readyToTick()) {
+                Thread.onSpinWait();
+            }
+            tickNanos[t] = System.nanoTime() - start;
+            values[0][t] = simulation.fuelHeat();
+            values[1][t] = simulation.stackHeat();
+            final var battery = simulation.battery();
+            final var coolantTank = simulation.coolantTank();
+            values[2][t] = battery != null ? battery.generatedLastTick() : coolantTank != null ? coolantTank.transitionedLastTick() : 0;
+            values[3][t] = simulation.fuelTank().burnedLastTick();
+        }
+        return new Run(backend, values, tickNanos);
+    }
+    
+    private static double relativeDivergence(double value, double reference) {
+        final double difference = Math.abs(value - reference);
+        if (difference == 0) {
+            return 0;
+        }
+        return difference / Math.max(Math.abs(reference), Math.abs(value));
+    }
+    
+    private static long median(long[] values) {
+        final long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+    
+    private static void writeCSV(Path file, List<Run> runs, int ticks) throws IOException {
+        try (final var writer = new PrintWriter(Files.newBufferedWriter(file))) {
+            final var header = new StringBuilder("tick");
+            for (final var run : runs) {
+                header.append(',').append(run.backend).append(".ns");
+                for (final var quantity : QUANTITIES) {
+                    header.append(',').append(run.backend).append('.').append(quantity);
+                }
+            }
+            writer.println(header);
+            for (int t = 0; t < ticks; t++) {
+                final var line = new StringBuilder().append(t);
+                for (final var run : runs) {
+                    line.append(',').append(run.tickNanos[t]);
+                    for (int q = 0; q < QUANTITIES.length; q++) {
+                        line.append(',').append(run.values[q][t]);
+                    }
+                }
+                writer.println(line);
+            }
+        }
+    }
+}
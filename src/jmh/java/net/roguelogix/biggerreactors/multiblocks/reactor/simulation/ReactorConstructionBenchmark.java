@@ -0,0 +1,40 @@
+package net.roguelogix.biggerreactors.multiblocks.reactor.simulation;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to build a simulation from a description, what a reactor pays every time its structure changes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReactorConstructionBenchmark {
+    
+    @Param({"PANCAKE", "TOWER", "CHECKERBOARD_SMALL", "CHECKERBOARD_LARGE", "MANIFOLD_HEAVY", "MAXIMUM", "UNIFORM_TOWER", "SKELETAL"})
+    public ReactorDesigns design;
+    
+    @Param({"FULL_PASS", "MULTI_THREADED_SINGLE", "MULTI_THREADED", "TIME_SLICED", "STOCHASTIC"})
+    public SimulationBackends backend;
+    
+    @Param({"true", "false"})
+    public boolean passive;
+    
+    private SimulationDescription description;
+    private SimulationConfiguration configuration;
+    
+    @Setup(Level.Trial)
+    public void setup() {
+        description = design.description();
+        configuration = new SimulationConfiguration(293.15, passive);
+    }
+    
+    @Benchmark
+    public IReactorSimulation construct() {
+        return backend.create(description, configuration);
+    }
+}
@@ -0,0 +1,106 @@
+package net.roguelogix.biggerreactors.multiblocks.reactor.simulation;
+
+import net.roguelogix.biggerreactors.registries.FluidTransitionRegistry;
+import net.roguelogix.biggerreactors.registries.ReactorModeratorRegistry;
+
+/**
+ * Canonical reactor layouts the benchmarks are run against, values are from the default datapack
+ */
+public enum ReactorDesigns {
+    // wide and flat, lots of rods, short columns
+    PANCAKE(64, 4, 64, Layout.CHECKERBOARD),
+    // narrow and tall, few rods, long columns
+    TOWER(7, 192, 7, Layout.CHECKERBOARD),
+    CHECKERBOARD_SMALL(16, 16, 16, Layout.CHECKERBOARD),
+    CHECKERBOARD_LARGE(64, 64, 64, Layout.CHECKERBOARD),
+    // sparse rods, every third layer between them is a coolant manifold
+    MANIFOLD_HEAVY(32, 32, 32, Layout.MANIFOLDS),
+    MAXIMUM(128, 192, 128, Layout.CHECKERBOARD),
+    // tall, each column a single moderator all the way up, how towers are usually built
+    UNIFORM_TOWER(32, 192, 32, Layout.COLUMNS),
+    // sparse rods and a few graphite columns, the rest is left as air
+    SKELETAL(48, 48, 48, Layout.SKELETAL),
+    ;
+    
+    public static final ReactorModeratorRegistry.ModeratorProperties GRAPHITE = new ReactorModeratorRegistry.ModeratorProperties(0.10, 0.50, 2.00, 2.00);
+    public static final ReactorModeratorRegistry.ModeratorProperties WATER = new ReactorModeratorRegistry.ModeratorProperties(0.33, 0.50, 1.33, 0.60);
+    public static final FluidTransitionRegistry.TransitionProperties WATER_TO_STEAM = new FluidTransitionRegistry.TransitionProperties(4, 373.15, 0.6, 0.025, 2.5);
+    
+    private enum Layout {
+        CHECKERBOARD,
+        MANIFOLDS,
+        COLUMNS,
+        SKELETAL,
+    }
+    
+    public final int x, y, z;
+    private final Layout layout;
+    
+    ReactorDesigns(int x, int y, int z, Layout layout) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.layout = layout;
+    }
+    
+    public SimulationDescription description() {
+        final var description = new SimulationDescription();
+        description.setSize(x, y, z);
+        description.setDefaultIModeratorProperties(ReactorModeratorRegistry.ModeratorProperties.EMPTY_MODERATOR);
+        for (int i = 0; i < x; i++) {
+            for (int k = 0; k < z; k++) {
+                final boolean controlRod = switch (layout) {
+                    case CHECKERBOARD, COLUMNS -> (i + k) % 2 == 0;
+                    case MANIFOLDS, SKELETAL -> i % 3 == 1 && k % 3 == 1;
+                };
+                if (controlRod) {
+                    description.setControlRod(i, k, true);
+                    continue;
+                }
+                if (layout == Layout.SKELETAL && (i + k) % 5 != 0) {
+                    continue;
+                }
+                for (int j = 0; j < y; j++) {
+                    if (layout == Layout.MANIFOLDS && j % 3 == 0) {
+                        description.setManifold(i, j, k, true);
+                        continue;
+                    }
+                    if (layout == Layout.SKELETAL) {
+                        description.setModeratorProperties(i, j, k, GRAPHITE);
+                        continue;
+                    }
+                    if (layout == Layout.COLUMNS) {
+                        description.setModeratorProperties(i, j, k, (i + k) % 3 == 0 ? WATER : GRAPHITE);
+                        continue;
+                    }
+                    description.setModeratorProperties(i, j, k, (i + j + k) % 3 == 0 ? WATER : GRAPHITE);
+                }
+            }
+        }
+        return description;
+    }
+    
+    /**
+     * Fills the reactor with fuel, and for actively cooled reactors sets up water
+     */
+    public static void fill(IReactorSimulation simulation) {
+        simulation.fuelTank().insertFuel(simulation.fuelTank().capacity(), false);
+        final var coolantTank = simulation.coolantTank();
+        if (coolantTank != null) {
+            coolantTank.setModeratorProperties(WATER);
+            coolantTank.setTransitionProperties(WATER_TO_STEAM);
+            coolantTank.insertLiquid(coolantTank.perSideCapacity());
+        }
+    }
+    
+    /**
+     * Keeps an actively cooled reactor from running dry, as coolant ports would
+     */
+    public static void refill(IReactorSimulation simulation) {
+        final var coolantTank = simulation.coolantTank();
+        if (coolantTank != null) {
+            coolantTank.dumpVapor();
+            coolantTank.insertLiquid(coolantTank.perSideCapacity() - coolantTank.liquidAmount());
+        }
+    }
+}
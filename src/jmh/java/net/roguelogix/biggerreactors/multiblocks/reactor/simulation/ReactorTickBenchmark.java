@@ -0,0 +1,41 @@
+package net.roguelogix.biggerreactors.multiblocks.reactor.simulation;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ticks per second of an active reactor, for each backend and design
+ * Steady state reuse and the irradiation cache apply as configured, same as they would on a server
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReactorTickBenchmark {
+    
+    @Param({"PANCAKE", "TOWER", "CHECKERBOARD_SMALL", "CHECKERBOARD_LARGE", "MANIFOLD_HEAVY", "MAXIMUM", "UNIFORM_TOWER", "SKELETAL"})
+    public ReactorDesigns design;
+    
+    @Param({"FULL_PASS", "MULTI_THREADED_SINGLE", "MULTI_THREADED", "TIME_SLICED", "STOCHASTIC"})
+    public SimulationBackends backend;
+    
+    @Param({"true", "false"})
+    public boolean passive;
+    
+    private IReactorSimulation simulation;
+    
+    @Setup(Level.Trial)
+    public void setup() {
+        simulation = backend.create(design.description(), new SimulationConfiguration(293.15, passive));
+        ReactorDesigns.fill(simulation);
+    }
+    
+    @Benchmark
+    public void tick() {
+        ReactorDesigns.refill(simulation);
+        simulation.tick(true);
+    }
+}
@@ -0,0 +1,126 @@
+package net.roguelogix.biggerreactors.multiblocks.reactor.simulation;
+
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.accellerated.ocl.CLUtil;
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.accellerated.ocl.SingleQueueOpenCL12Simulation;
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.accellerated.vk.Vk13Simulation;
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.accellerated.vk.VkUtil;
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.base.SimUtil;
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.cpu.FullPassReactorSimulation;
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.cpu.RayTable;
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.cpu.StochasticReactorSimulation;
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.cpu.TimeSlicedReactorSimulation;
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.cpu.VectorizedReactorSimulation;
+
+/**
+ * The CPU simulations, constructed directly rather than through {@link SimulationDescription.Builder} so each is benchmarked regardless of size thresholds
+ */
+public enum SimulationBackends {
+    FULL_PASS {
+        @Override
+        public IReactorSimulation create(SimulationDescription description, SimulationConfiguration configuration) {
+            return new FullPassReactorSimulation(description, configuration);
+        }
+    },
+    // marches every step through its moderators, transparent columns included, the full pass has to match it exactly
+    FULL_PASS_MARCHED {
+        @Override
+        public IReactorSimulation create(SimulationDescription description, SimulationConfiguration configuration) {
+            return new FullPassReactorSimulation(description, configuration) {
+                {
+                    rayTable = new RayTable(controlRods, x, y, z);
+                }
+            };
+        }
+        
+        @Override
+        public boolean exact() {
+            return true;
+        }
+    },
+    MULTI_THREADED_SINGLE {
+        @Override
+        public IReactorSimulation create(SimulationDescription description, SimulationConfiguration configuration) {
+            return new FullPassReactorSimulation.MultiThreaded(description, configuration, true);
+        }
+    },
+    MULTI_THREADED {
+        @Override
+        public IReactorSimulation create(SimulationDescription description, SimulationConfiguration configuration) {
+            return new FullPassReactorSimulation.MultiThreaded(description, configuration, false);
+        }
+    },
+    TIME_SLICED {
+        @Override
+        public IReactorSimulation create(SimulationDescription description, SimulationConfiguration configuration) {
+            return new TimeSlicedReactorSimulation(description, configuration);
+        }
+    },
+    STOCHASTIC {
+        @Override
+        public IReactorSimulation create(SimulationDescription description, SimulationConfiguration configuration) {
+            return new StochasticReactorSimulation(description, configuration);
+        }
+    },
+    SINGLE_PRECISION {
+        @Override
+        public IReactorSimulation create(SimulationDescription description, SimulationConfiguration configuration) {
+            return new FullPassReactorSimulation.MultiThreaded(description, configuration, false, true);
+        }
+    },
+    VECTORIZED {
+        @Override
+        public IReactorSimulation create(SimulationDescription description, SimulationConfiguration configuration) {
+            return new VectorizedReactorSimulation(description, configuration, false);
+        }
+        
+        @Override
+        public boolean available() {
+            return SimUtil.vectorAPIAvailable;
+        }
+    },
+    OPENCL {
+        @Override
+        public IReactorSimulation create(SimulationDescription description, SimulationConfiguration configuration) {
+            return new SingleQueueOpenCL12Simulation(description, configuration);
+        }
+        
+        @Override
+        public boolean available() {
+            try {
+                return CLUtil.available;
+            } catch (Throwable e) {
+                // no LWJGL OpenCL bindings
+                return false;
+            }
+        }
+    },
+    VULKAN {
+        @Override
+        public IReactorSimulation create(SimulationDescription description, SimulationConfiguration configuration) {
+            return new Vk13Simulation(description, configuration);
+        }
+        
+        @Override
+        public boolean available() {
+            try {
+                return VkUtil.available;
+            } catch (Throwable e) {
+                return false;
+            }
+        }
+    },
+    ;
+    
+    public abstract IReactorSimulation create(SimulationDescription description, SimulationConfiguration configuration);
+    
+    public boolean available() {
+        return true;
+    }
+    
+    /**
+     * Whether any divergence from the full pass is a bug, rather than rounding or sampling
+     */
+    public boolean exact() {
+        return false;
+    }
+}
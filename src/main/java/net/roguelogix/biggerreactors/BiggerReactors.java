@@ -4,18 +4,25 @@ import it.unimi.dsi.fastutil.objects.ReferenceArrayList;
 import net.minecraft.client.gui.screens.MenuScreens;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.server.ServerAboutToStartEvent;
 import net.minecraftforge.fml.common.Mod;
 import net.minecraftforge.fml.event.lifecycle.FMLClientSetupEvent;
 import net.minecraftforge.fml.javafmlmod.FMLJavaModLoadingContext;
 import net.minecraftforge.fml.loading.FMLLoader;
+import net.minecraftforge.fml.loading.FMLPaths;
 import net.roguelogix.biggerreactors.machine.client.CyaniteReprocessorScreen;
 import net.roguelogix.biggerreactors.machine.containers.CyaniteReprocessorContainer;
 import net.roguelogix.biggerreactors.multiblocks.heatexchanger.client.HeatExchangerFluidPortScreen;
 import net.roguelogix.biggerreactors.multiblocks.heatexchanger.client.HeatExchangerTerminalScreen;
 import net.roguelogix.biggerreactors.multiblocks.heatexchanger.containers.HeatExchangerFluidPortContainer;
 import net.roguelogix.biggerreactors.multiblocks.heatexchanger.containers.HeatExchangerTerminalContainer;
+import net.roguelogix.biggerreactors.multiblocks.reactor.ReactorMultiblockController;
 import net.roguelogix.biggerreactors.multiblocks.reactor.client.*;
 import net.roguelogix.biggerreactors.multiblocks.reactor.containers.*;
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.SimulationCostModel;
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.base.SimulationGovernor;
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.cpu.IrradiationScheduler;
 import net.roguelogix.biggerreactors.multiblocks.turbine.client.TurbineFluidPortScreen;
 import net.roguelogix.biggerreactors.multiblocks.turbine.client.TurbineTerminalScreen;
 import net.roguelogix.biggerreactors.multiblocks.turbine.containers.TurbineFluidPortContainer;
@@ -43,6 +50,8 @@ public class BiggerReactors {
         new Registry(new ReferenceArrayList<>(), ReferenceArrayList.of(new ResourceLocation(Phosphophyllite.modid, "creative_tab"), new ResourceLocation(Quartz.modid, "creative_tab")));
         FMLJavaModLoadingContext.get().getModEventBus().addListener(this::onClientSetup);
         MinecraftForge.EVENT_BUS.addListener(this::onReloadData);
+        MinecraftForge.EVENT_BUS.addListener(this::onServerTick);
+        MinecraftForge.EVENT_BUS.addListener(this::onServerAboutToStart);
         version = FMLLoader.getLoadingModList().getModFileById(modid).versionString();
     }
     
@@ -52,6 +61,30 @@ public class BiggerReactors {
         FluidTransitionRegistry.loadRegistry();
     }
 
+    private long serverTickStart = 0;
+    
+    public void onServerTick(final TickEvent.ServerTickEvent e) {
+        if (e.phase == TickEvent.Phase.START) {
+            serverTickStart = System.nanoTime();
+            return;
+        }
+        // every reactor has ticked and submitted its next irradiation, send it all off together
+        IrradiationScheduler.dispatch();
+        if (serverTickStart != 0) {
+            SimulationGovernor.recordServerTick(System.nanoTime() - serverTickStart);
+        }
+    }
+    
+    public void onServerAboutToStart(final ServerAboutToStartEvent e) {
+        if (!Config.CONFIG.Reactor.useCalibratedSimulationSelection || SimulationCostModel.current() != null) {
+            return;
+        }
+        // before any level loads, so no reactor is ticking on the worker pools the measurements use
+        final var builder = ReactorMultiblockController.configuredSimulationBuilder();
+        final var file = FMLPaths.CONFIGDIR.get().resolve(modid + "-simulation-calibration.robn");
+        SimulationCostModel.loadOrCalibrate(builder, file);
+    }
+    
     public void onClientSetup(final FMLClientSetupEvent e) {
         // TODO: 6/28/20 Registry.
         //  Since I already have the comment here, also need to do a capability registry. I have a somewhat dumb capability to register.
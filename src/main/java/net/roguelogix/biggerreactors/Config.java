@@ -71,12 +71,33 @@ public class Config {
         public final boolean allowMultiThreadSimulation;
         @ConfigValue(advanced = ConfigValue.BoolOption.True)
         public final boolean allowAcceleratedSimulation;
+        @ConfigValue(advanced = ConfigValue.BoolOption.True, comment = "Uses the incubating Java Vector API for the full pass simulation when it is available\nRequires the JVM to be started with --add-modules jdk.incubator.vector")
+        public final boolean allowVectorizedSimulation;
+        @ConfigValue(advanced = ConfigValue.BoolOption.True, comment = "Runs the CPU full pass simulation in single precision, like the OpenCL simulation does\nHalves the memory the irradiation works over, and doubles the lanes used by the vectorized simulation")
+        public final boolean useSinglePrecisionSimulation;
+        @ConfigValue(advanced = ConfigValue.BoolOption.True, comment = "Picks the full pass simulation backend from a calibration of this machine, instead of fixed reactor size thresholds\nCalibration runs once while a server starts, before its levels load, and is saved until the hardware or simulation settings change")
+        public final boolean useCalibratedSimulationSelection;
+        @ConfigValue(advanced = ConfigValue.BoolOption.True, comment = "Runs the whole reactor simulation step off thread, the server thread only hands over inputs and reads the outputs of the last finished step\nReactor readouts lag a tick behind, requires allowOffThreadSimulation")
+        public final boolean useFullyAsyncSimulation;
+        @ConfigValue(advanced = ConfigValue.BoolOption.True, comment = "Swaps changed moderator blocks into a running simulation, instead of rebuilding it when a reactor revalidates\nAnything else changing (size, fuel rods, manifolds, ports) still rebuilds")
+        public final boolean allowIncrementalSimulationUpdate;
+        @ConfigValue(advanced = ConfigValue.BoolOption.True, comment = "Reads a reactor's interior and builds its simulation off thread when it assembles, instead of holding up the server\nA newly assembled reactor is starting, and doesn't run, until that's done")
+        public final boolean allowOffThreadAssembly;
+        @ConfigValue(range = "[0,)", advanced = ConfigValue.BoolOption.True, comment = "Interior volume (blocks) from which reactors assemble off thread, smaller ones are quick enough to assemble in place")
+        public final long OffThreadAssemblyMinVolume;
         
         {
             useFullPassSimulation = false;
             allowOffThreadSimulation = true;
             allowMultiThreadSimulation = true;
             allowAcceleratedSimulation = true;
+            allowVectorizedSimulation = true;
+            useSinglePrecisionSimulation = false;
+            useCalibratedSimulationSelection = true;
+            useFullyAsyncSimulation = false;
+            allowIncrementalSimulationUpdate = true;
+            allowOffThreadAssembly = true;
+            OffThreadAssemblyMinVolume = 4096;
         }
         
         @ConfigValue(range = "[1,)", advanced = ConfigValue.BoolOption.True)
@@ -184,9 +205,63 @@ public class Config {
         public static final class ModeSpecific {
             @ConfigValue(range = "(0,)", advanced = ConfigValue.BoolOption.True)
             public final int ControlRodBatchSize;
+            @ConfigValue(range = "[0,)", advanced = ConfigValue.BoolOption.True, comment = "Worker threads shared by all multi-threaded reactor simulations, 0 uses one per available processor")
+            public final int IrradiationThreads;
+            @ConfigValue(range = "[1,)", advanced = ConfigValue.BoolOption.True, comment = "How many pieces of work a multi-threaded reactor simulation is split into per worker thread\nMore pieces balance better, at the cost of scheduling overhead")
+            public final int IrradiationTasksPerThread;
+            @ConfigValue(range = "(0,)", advanced = ConfigValue.BoolOption.True, comment = "Time (ms) all multi-threaded reactors' irradiation is expected to finish in, once it's dispatched at the end of a server tick\nMisses are counted in the reactor's debug info")
+            public final double IrradiationDeadline;
+            @ConfigValue(range = "[0,)", advanced = ConfigValue.BoolOption.True, comment = "Fuel temperature spacing (K) of the per rod irradiation results cached by the full pass simulations\nResults are interpolated between cached temperatures, and only recomputed when control rods or moderators change\n0 disables the cache")
+            public final double IrradiationCacheTemperatureStep;
+            @ConfigValue(range = "[0,)", advanced = ConfigValue.BoolOption.True, comment = "Relative change in a moderator's properties (ie: from the coolant level) that drops the irradiation cache")
+            public final double IrradiationCacheModeratorTolerance;
+            @ConfigValue(advanced = ConfigValue.BoolOption.True, comment = "When only some control rod insertions change, full pass simulations march the rays that cross those rods again and patch the irradiation cache, instead of dropping it\nResults only differ by rounding")
+            public final boolean allowIrradiationCachePatching;
+            @ConfigValue(advanced = ConfigValue.BoolOption.True, comment = "While every control rod has the same insertion, full pass simulations irradiate one rod per group of rods with the same surroundings, and count it for the whole group\nResults only differ by rounding")
+            public final boolean allowControlRodClasses;
+            @ConfigValue(range = "[0,)", advanced = ConfigValue.BoolOption.True, comment = "While a reactor's inputs stay within the steady state tolerances, the last irradiation result is reused instead of recomputed\nA full irradiation is forced at least this often (in ticks), 0 disables steady state reuse\nOff by default, reused ticks drift from a full irradiation by up to the tolerances")
+            public final int SteadyStateRefreshInterval;
+            @ConfigValue(range = "[0,)", advanced = ConfigValue.BoolOption.True, comment = "Fuel temperature drift (K) allowed before the last irradiation result is recomputed")
+            public final double SteadyStateHeatTolerance;
+            @ConfigValue(range = "[0,)", advanced = ConfigValue.BoolOption.True, comment = "Fuel and waste drift, relative to the total reactant, allowed before the last irradiation result is recomputed")
+            public final double SteadyStateFuelTolerance;
+            @ConfigValue(range = "[0,)", advanced = ConfigValue.BoolOption.True, comment = "Relative coolant level drift allowed before the last irradiation result is recomputed")
+            public final double SteadyStateCoolantTolerance;
+            @ConfigValue(range = "[0,)", advanced = ConfigValue.BoolOption.True, comment = "Moderator blocks visited per tick by the sampled simulation, used instead of the time sliced simulation when full pass is off\nEach tick a spread out subset of the control rods' rays is irradiated, and the result is averaged over ticks\n0 uses the time sliced simulation instead")
+            public final int StochasticSampleBudget;
+            @ConfigValue(range = "[1,)", advanced = ConfigValue.BoolOption.True, comment = "How many ticks the sampled simulation averages its samples over, longer is smoother but slower to follow temperature changes")
+            public final double StochasticAveragingTicks;
+            @ConfigValue(range = "[1,)", advanced = ConfigValue.BoolOption.True, comment = "When fast forwarding a reactor many ticks at once, how often (in ticks) its irradiation is recomputed")
+            public final int FastForwardIrradiationInterval;
+            @ConfigValue(range = "[0,)", advanced = ConfigValue.BoolOption.True, comment = "Server tick time (ms) above which reactors start reusing their irradiation results for more ticks, most expensive reactors first\n0 disables it")
+            public final double GovernorTickBudget;
+            @ConfigValue(range = "(0,1]", advanced = ConfigValue.BoolOption.True, comment = "Fraction of the tick budget the server tick time has to be under before reactors are given fidelity back")
+            public final double GovernorRecoveryFraction;
+            @ConfigValue(range = "[1,)", advanced = ConfigValue.BoolOption.True, comment = "Ticks the server has to be over budget before reactor fidelity is lowered another step")
+            public final int GovernorReactionTicks;
+            @ConfigValue(range = "[1,)", advanced = ConfigValue.BoolOption.True, comment = "Ticks the server has to be under the recovery fraction of the budget before reactor fidelity is raised a step")
+            public final int GovernorRecoveryTicks;
             
             {
                 ControlRodBatchSize = 32;
+                IrradiationThreads = 0;
+                IrradiationTasksPerThread = 4;
+                IrradiationDeadline = 25;
+                IrradiationCacheTemperatureStep = 10;
+                IrradiationCacheModeratorTolerance = 0.01;
+                allowIrradiationCachePatching = true;
+                allowControlRodClasses = true;
+                SteadyStateRefreshInterval = 0;
+                SteadyStateHeatTolerance = 0.5;
+                SteadyStateFuelTolerance = 0.001;
+                SteadyStateCoolantTolerance = 0.01;
+                StochasticSampleBudget = 65536;
+                StochasticAveragingTicks = 8;
+                FastForwardIrradiationInterval = 20;
+                GovernorTickBudget = 45;
+                GovernorRecoveryFraction = 0.8;
+                GovernorReactionTicks = 20;
+                GovernorRecoveryTicks = 200;
             }
         }
         
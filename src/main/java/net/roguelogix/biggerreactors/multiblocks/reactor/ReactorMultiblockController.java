@@ -1,5 +1,6 @@
 package net.roguelogix.biggerreactors.multiblocks.reactor;
 
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import net.minecraft.core.BlockPos;
@@ -25,6 +26,7 @@ import net.roguelogix.biggerreactors.multiblocks.reactor.state.ReactorState;
 import net.roguelogix.biggerreactors.multiblocks.reactor.state.ReactorType;
 import net.roguelogix.biggerreactors.multiblocks.reactor.tiles.*;
 import net.roguelogix.biggerreactors.multiblocks.reactor.util.ReactorTransitionTank;
+import net.roguelogix.biggerreactors.multiblocks.reactor.util.SimulationAssembly;
 import net.roguelogix.biggerreactors.registries.ReactorModeratorRegistry;
 import net.roguelogix.phosphophyllite.Phosphophyllite;
 import net.roguelogix.phosphophyllite.debug.DebugInfo;
@@ -358,6 +360,8 @@ public class ReactorMultiblockController extends MultiblockController<ReactorBas
         
         if (compound.contains("simulationData")) {
             simulation = null;
+            currentSimulationDescription = null;
+            pendingAssembly = null;
             simulationData = new PhosphophylliteCompound(compound.getByteArray("simulationData"));
         }
         if (compound.contains("coolantTankWrapper")) {
@@ -378,6 +382,9 @@ public class ReactorMultiblockController extends MultiblockController<ReactorBas
                 if (phosCompound != null) {
                     compound.putByteArray("simulationData", phosCompound.toROBN());
                 }
+            } else if (pendingAssembly != null && simulationData != null) {
+                // still starting, keep what it will load
+                compound.putByteArray("simulationData", simulationData.toROBN());
             }
             if (coolantTank != null) {
                 compound.put("coolantTankWrapper", coolantTank.serializeNBT());
@@ -407,17 +414,15 @@ public class ReactorMultiblockController extends MultiblockController<ReactorBas
         }
     }
     
+    public static SimulationDescription.Builder configuredSimulationBuilder() {
+        return new SimulationDescription.Builder(Config.CONFIG.mode == Config.Mode.EXPERIMENTAL, Config.CONFIG.Reactor.useFullPassSimulation, Config.CONFIG.Reactor.allowOffThreadSimulation, Config.CONFIG.Reactor.allowMultiThreadSimulation, Config.CONFIG.Reactor.allowAcceleratedSimulation, Config.CONFIG.Reactor.allowVectorizedSimulation, Config.CONFIG.Reactor.useSinglePrecisionSimulation, Config.CONFIG.Reactor.useFullyAsyncSimulation);
+    }
+    
     protected void onValidationPassed() {
         SimulationDescription simulationDescription = new SimulationDescription();
         simulationDescription.setSize(max().x() - min().x() - 1, max().y() - min().y() - 1, max().z() - min().z() - 1);
         Vector3i start = new Vector3i(1).add(min());
         Vector3i end = new Vector3i(-1).add(max());
-        Util.chunkCachedBlockStateIteration(start, end, level, (state, pos) -> {
-            if (!(state.getBlock() instanceof ReactorBaseBlock)) {
-                pos.sub(start);
-                simulationDescription.setModeratorProperties(pos.x, pos.y, pos.z, ReactorModeratorRegistry.blockModeratorProperties(state.getBlock()));
-            }
-        });
         //noinspection ForLoopReplaceableByForEach
         for (int i = 0; i < manifolds.size(); i++) {
             BlockPos manifoldPos = manifolds.get(i).getBlockPos();
@@ -433,16 +438,64 @@ public class ReactorMultiblockController extends MultiblockController<ReactorBas
             airProperties = ReactorModeratorRegistry.ModeratorProperties.EMPTY_MODERATOR;
         }
         simulationDescription.setDefaultIModeratorProperties(airProperties);
+        final var simulationConfiguration = new SimulationConfiguration(Config.CONFIG.Reactor, 293.15, coolantPorts.isEmpty());
+        final var previousDescription = updatableDescription(simulationConfiguration);
+        
+        final long volume = (long) simulationDescription.x() * simulationDescription.y() * simulationDescription.z();
+        if (Config.CONFIG.Reactor.allowOffThreadAssembly && volume >= Config.CONFIG.Reactor.OffThreadAssemblyMinVolume) {
+            // the current simulation, if any, keeps running until this is done
+            pendingAssembly = new SimulationAssembly(level, start, end, simulationDescription, simulationConfiguration, configuredSimulationBuilder(), previousDescription);
+            return;
+        }
+        pendingAssembly = null;
+        
+        Util.chunkCachedBlockStateIteration(start, end, level, (state, pos) -> {
+            if (!(state.getBlock() instanceof ReactorBaseBlock)) {
+                pos.sub(start);
+                simulationDescription.setModeratorProperties(pos.x, pos.y, pos.z, ReactorModeratorRegistry.blockModeratorProperties(state.getBlock()));
+            }
+        });
+        if (previousDescription == null || !updateSimulation(simulationDescription, SimulationAssembly.moderatorChanges(previousDescription, simulationDescription))) {
+            swapSimulation(configuredSimulationBuilder().build(simulationDescription, simulationConfiguration));
+        }
+        onSimulationAssembled(simulationDescription);
+    }
+    
+    /**
+     * Swaps in the simulation from the pending assembly, once its worker is done
+     */
+    private void finishPendingAssembly() {
+        final var assembly = pendingAssembly;
+        if (assembly == null || !assembly.done()) {
+            return;
+        }
+        pendingAssembly = null;
+        final var simulationDescription = assembly.description();
+        final var assembledSimulation = assembly.simulation();
+        if (assembledSimulation != null) {
+            swapSimulation(assembledSimulation);
+        } else if (assembly.previousDescription() != currentSimulationDescription || !updateSimulation(simulationDescription, assembly.moderatorChanges())) {
+            // the simulation changed underneath it, or couldn't take the changes, build it after all
+            pendingAssembly = new SimulationAssembly(simulationDescription, assembly.configuration(), assembly.builder());
+            return;
+        }
+        onSimulationAssembled(simulationDescription);
+    }
+    
+    private void swapSimulation(IReactorSimulation newSimulation) {
         // if we already have a simulation, it is the reference
         if (simulation != null) {
             simulationData = simulation.save();
         }
-        final var simulationBuilder = new SimulationDescription.Builder(Config.CONFIG.mode == Config.Mode.EXPERIMENTAL, Config.CONFIG.Reactor.useFullPassSimulation, Config.CONFIG.Reactor.allowOffThreadSimulation, Config.CONFIG.Reactor.allowMultiThreadSimulation, Config.CONFIG.Reactor.allowAcceleratedSimulation);
-        final var simulationConfiguration = new SimulationConfiguration(Config.CONFIG.Reactor, 293.15, coolantPorts.isEmpty());
-        simulation = simulationBuilder.build(simulationDescription, simulationConfiguration);
+        simulation = newSimulation;
         if (simulationData != null) {
             simulation.load(simulationData);
         }
+    }
+    
+    private void onSimulationAssembled(SimulationDescription simulationDescription) {
+        assert simulation != null;
+        currentSimulationDescription = simulationDescription;
         var simCoolantTank = simulation.coolantTank();
         if (simCoolantTank != null) {
             coolantTank = new ReactorTransitionTank(simCoolantTank);
@@ -475,6 +528,43 @@ public class ReactorMultiblockController extends MultiblockController<ReactorBas
         updateFuelRenderingLevel(true);
     }
     
+    /**
+     * What the current simulation was built from, if it can have moderators swapped into it with the given configuration
+     */
+    @Nullable
+    private SimulationDescription updatableDescription(SimulationConfiguration configuration) {
+        if (!Config.CONFIG.Reactor.allowIncrementalSimulationUpdate || simulation == null) {
+            return null;
+        }
+        if ((simulation.battery() != null) != configuration.passivelyCooled()) {
+            return null;
+        }
+        return currentSimulationDescription;
+    }
+    
+    /**
+     * Swaps changed moderators into the running simulation
+     *
+     * @param changedModerators from {@link SimulationAssembly#moderatorChanges}, null if more than moderators changed
+     * @return false if the simulation needs to be rebuilt
+     */
+    private boolean updateSimulation(SimulationDescription newDescription, @Nullable IntArrayList changedModerators) {
+        final var simulation = this.simulation;
+        if (simulation == null || changedModerators == null) {
+            return false;
+        }
+        for (int i = 0; i < changedModerators.size(); i += 3) {
+            final int x = changedModerators.getInt(i);
+            final int y = changedModerators.getInt(i + 1);
+            final int z = changedModerators.getInt(i + 2);
+            // a partial update is fine, the rebuild is from the new description anyway
+            if (!simulation.setModeratorProperties(x, y, z, newDescription.moderatorPropertiesAt(x, y, z))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
     @Override
     public void onDisassembled() {
         distributeFuel();
@@ -483,10 +573,18 @@ public class ReactorMultiblockController extends MultiblockController<ReactorBas
             simulationData = simulation.save();
             simulation = null;
         }
+        currentSimulationDescription = null;
+        pendingAssembly = null;
     }
     
     @Nullable
     private IReactorSimulation simulation;
+    // what the simulation was built from, and kept up to date with
+    @Nullable
+    private SimulationDescription currentSimulationDescription;
+    // building off thread, the reactor is starting until it's swapped in
+    @Nullable
+    private SimulationAssembly pendingAssembly;
     @Nullable
     PhosphophylliteCompound simulationData;
     @Nullable
@@ -514,6 +612,8 @@ public class ReactorMultiblockController extends MultiblockController<ReactorBas
             updateBlockStates();
         }
         
+        finishPendingAssembly();
+        
         if (simulation == null) {
             return;
         }
@@ -828,6 +928,7 @@ public class ReactorMultiblockController extends MultiblockController<ReactorBas
         reactorState.reactivityRate = simulation.fertility();
         reactorState.fuelUsageRate = simulation.fuelTank().burnedLastTick();
         reactorState.reactorOutputRate = battery != null ? battery.generatedLastTick() : coolantTank.transitionedLastTick();
+        reactorState.simulationFidelityLevel = simulation.fidelityLevel();
     }
     
     public void runRequest(String requestName, @Nullable Object requestData) {
@@ -867,6 +968,9 @@ public class ReactorMultiblockController extends MultiblockController<ReactorBas
         final var info = new DebugInfo("Reactor Controller");
         info.add("State: " + reactorActivity);
         info.add("AutoEjectWaste: " + autoEjectWaste);
+        if (pendingAssembly != null) {
+            info.add("Simulation is starting");
+        }
         if (simulation == null) {
             info.add("Simulation is null");
         } else {
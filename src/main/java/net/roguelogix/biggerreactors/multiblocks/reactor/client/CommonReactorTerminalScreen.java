@@ -83,7 +83,11 @@ public class CommonReactorTerminalScreen extends PhosphophylliteScreen<ReactorTe
         // (Left) Reactivity rate readout tooltip:
         TooltipElement<ReactorTerminalContainer> reactivityRateTooltip = new TooltipElement<>(screen, 26, 76, 53, 16, Component.empty());
         reactivityRateTooltip.onTick = () -> {
-            reactivityRateTooltip.tooltip = Component.literal(String.format("%.1f%%", (reactorState.reactivityRate * 100.0)));
+            var tooltip = Component.literal(String.format("%.1f%%", (reactorState.reactivityRate * 100.0)));
+            if (reactorState.simulationFidelityLevel > 0) {
+                tooltip.append("\n").append(Component.translatable("screen.biggerreactors.reactor_terminal.simulation_fidelity.reduced", 1 << reactorState.simulationFidelityLevel));
+            }
+            reactivityRateTooltip.tooltip = tooltip;
         };
         screen.addScreenElement(reactivityRateTooltip);
 
@@ -0,0 +1,576 @@
+package net.roguelogix.biggerreactors.multiblocks.reactor.simulation;
+
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import net.roguelogix.biggerreactors.registries.FluidTransitionRegistry;
+import net.roguelogix.biggerreactors.registries.ReactorModeratorRegistry;
+import net.roguelogix.phosphophyllite.debug.DebugInfo;
+import net.roguelogix.phosphophyllite.serialization.PhosphophylliteCompound;
+import net.roguelogix.phosphophyllite.threading.Event;
+import net.roguelogix.phosphophyllite.threading.Queues;
+import net.roguelogix.phosphophyllite.util.NonnullDefault;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Runs every step of another simulation off thread, the server thread only sees a copy of its outputs from the last finished step
+ * Inputs (control rods, fuel, coolant, power) are applied to the front copy immediately, and handed to the simulation between steps
+ * If a step isn't done by the next tick, the tick is deferred and caught up with {@link IReactorSimulation#tickMany} instead of waiting on it
+ * The simulation should irradiate inline, an async one would queue its irradiation behind the step that waits on it
+ */
+@ParametersAreNonnullByDefault
+@NonnullDefault
+public class AsyncReactorSimulation implements IReactorSimulation {
+    
+    private final IReactorSimulation simulation;
+    
+    @Nullable
+    private Event stepDone;
+    private int stepTicks;
+    private boolean stepActive;
+    private long stepNanos;
+    private int deferredTicks = 0;
+    // kept apart from stepActive, which the running step reads
+    private boolean deferredActive;
+    private long totalDeferredTicks = 0;
+    private final Runnable step = this::step;
+    
+    private final ObjectArrayList<FrontControlRod> controlRods = new ObjectArrayList<>();
+    private final FrontControlRod[][] controlRodsXZ;
+    @Nullable
+    private final FrontBattery battery;
+    @Nullable
+    private final FrontCoolantTank coolantTank;
+    private final FrontFuelTank fuelTank;
+    
+    private double fertility;
+    private double fuelHeat;
+    private double stackHeat;
+    private int fidelityLevel;
+    
+    public AsyncReactorSimulation(IReactorSimulation simulation, SimulationDescription description) {
+        this.simulation = simulation;
+        controlRodsXZ = new FrontControlRod[description.x()][description.z()];
+        for (int i = 0; i < description.x(); i++) {
+            for (int j = 0; j < description.z(); j++) {
+                final var controlRod = simulation.controlRodAt(i, j);
+                if (controlRod != null) {
+                    final var frontControlRod = new FrontControlRod(controlRod);
+                    controlRodsXZ[i][j] = frontControlRod;
+                    controlRods.add(frontControlRod);
+                }
+            }
+        }
+        final var simulationBattery = simulation.battery();
+        battery = simulationBattery == null ? null : new FrontBattery(simulationBattery);
+        final var simulationCoolantTank = simulation.coolantTank();
+        coolantTank = simulationCoolantTank == null ? null : new FrontCoolantTank(simulationCoolantTank);
+        fuelTank = new FrontFuelTank(simulation.fuelTank());
+        publish();
+    }
+    
+    @Override
+    public void tick(boolean active) {
+        if (stepDone != null && !stepDone.ready()) {
+            deferredTicks++;
+            totalDeferredTicks++;
+            deferredActive = active;
+            return;
+        }
+        stepDone = null;
+        exchange();
+        stepTicks = deferredTicks + 1;
+        stepActive = active;
+        deferredTicks = 0;
+        stepDone = Queues.offThread.enqueue(step);
+    }
+    
+    private void step() {
+        final long start = System.nanoTime();
+        if (stepTicks == 1) {
+            simulation.tick(stepActive);
+        } else {
+            simulation.tickMany(stepTicks, stepActive);
+        }
+        stepNanos = System.nanoTime() - start;
+    }
+    
+    @Override
+    public void tickMany(int ticks, boolean active) {
+        join();
+        simulation.tickMany(ticks, active);
+        publish();
+    }
+    
+    /**
+     * Waits for the running step, and brings the simulation and the front copy in sync, only safe to touch the simulation after this
+     */
+    private void join() {
+        if (stepDone != null) {
+            stepDone.join();
+            stepDone = null;
+        }
+        if (deferredTicks != 0) {
+            simulation.tickMany(deferredTicks, deferredActive);
+            deferredTicks = 0;
+        }
+        exchange();
+    }
+    
+    /**
+     * Simulation must not be running
+     */
+    private void exchange() {
+        for (int i = 0; i < controlRods.size(); i++) {
+            controlRods.get(i).apply();
+        }
+        if (battery != null) {
+            battery.apply();
+        }
+        if (coolantTank != null) {
+            coolantTank.apply();
+        }
+        fuelTank.apply();
+        publish();
+    }
+    
+    private void publish() {
+        fertility = simulation.fertility();
+        fuelHeat = simulation.fuelHeat();
+        stackHeat = simulation.stackHeat();
+        fidelityLevel = simulation.fidelityLevel();
+        if (battery != null) {
+            battery.publish();
+        }
+        if (coolantTank != null) {
+            coolantTank.publish();
+        }
+        fuelTank.publish();
+    }
+    
+    @Nullable
+    @Override
+    public IBattery battery() {
+        return battery;
+    }
+    
+    @Nullable
+    @Override
+    public ICoolantTank coolantTank() {
+        return coolantTank;
+    }
+    
+    @Override
+    public IFuelTank fuelTank() {
+        return fuelTank;
+    }
+    
+    @Nullable
+    @Override
+    public ControlRod controlRodAt(int x, int z) {
+        if (x < 0 || x >= controlRodsXZ.length || z < 0 || z >= controlRodsXZ[x].length) {
+            return null;
+        }
+        return controlRodsXZ[x][z];
+    }
+    
+    @Override
+    public void setAllControlRodInsertions(double insertion) {
+        for (int i = 0; i < controlRods.size(); i++) {
+            controlRods.get(i).setInsertion(insertion);
+        }
+    }
+    
+    @Override
+    public double fertility() {
+        return fertility;
+    }
+    
+    @Override
+    public double fuelHeat() {
+        return fuelHeat;
+    }
+    
+    @Override
+    public double stackHeat() {
+        return stackHeat;
+    }
+    
+    @Override
+    public double ambientTemperature() {
+        return simulation.ambientTemperature();
+    }
+    
+    @Override
+    public boolean setModeratorProperties(int x, int y, int z, @Nullable ReactorModeratorRegistry.IModeratorProperties properties) {
+        join();
+        return simulation.setModeratorProperties(x, y, z, properties);
+    }
+    
+    @Override
+    public int fidelityLevel() {
+        return fidelityLevel;
+    }
+    
+    @Nonnull
+    @Override
+    public PhosphophylliteCompound save() {
+        join();
+        return simulation.save();
+    }
+    
+    @Override
+    public void load(PhosphophylliteCompound compound) {
+        join();
+        simulation.load(compound);
+        publish();
+    }
+    
+    @Override
+    public DebugInfo getDebugInfo() {
+        join();
+        final var info = simulation.getDebugInfo();
+        final var asyncInfo = new DebugInfo("AsyncSimulation");
+        asyncInfo.add("LastStepTime: " + stepNanos / 1_000_000.0 + "ms");
+        asyncInfo.add("DeferredTicks: " + totalDeferredTicks);
+        info.add(asyncInfo);
+        return info;
+    }
+    
+    private static class FrontControlRod implements ControlRod {
+        private final ControlRod controlRod;
+        private double insertion;
+        private boolean dirty = false;
+        
+        private FrontControlRod(ControlRod controlRod) {
+            this.controlRod = controlRod;
+            insertion = controlRod.insertion();
+        }
+        
+        @Override
+        public double insertion() {
+            return insertion;
+        }
+        
+        @Override
+        public void setInsertion(double insertion) {
+            this.insertion = insertion;
+            dirty = true;
+        }
+        
+        private void apply() {
+            if (dirty) {
+                controlRod.setInsertion(insertion);
+                dirty = false;
+            }
+        }
+    }
+    
+    private static class FrontBattery implements IBattery {
+        private final IBattery battery;
+        private long stored;
+        private long capacity;
+        private long generatedLastTick;
+        private long extracted = 0;
+        
+        private FrontBattery(IBattery battery) {
+            this.battery = battery;
+        }
+        
+        @Override
+        public long extract(long toExtract) {
+            stored -= toExtract;
+            extracted += toExtract;
+            return toExtract;
+        }
+        
+        @Override
+        public long stored() {
+            return stored;
+        }
+        
+        @Override
+        public long capacity() {
+            return capacity;
+        }
+        
+        @Override
+        public long generatedLastTick() {
+            return generatedLastTick;
+        }
+        
+        private void apply() {
+            // stored only goes up during a step, so whatever was taken from the front copy is still there
+            battery.extract(Math.min(extracted, battery.stored()));
+            extracted = 0;
+        }
+        
+        private void publish() {
+            stored = battery.stored();
+            capacity = battery.capacity();
+            generatedLastTick = battery.generatedLastTick();
+        }
+    }
+    
+    private static class FrontCoolantTank implements ICoolantTank {
+        private final ICoolantTank coolantTank;
+        private long liquid;
+        private long vapor;
+        private long transitionedLastTick;
+        private long maxTransitionedLastTick;
+        private long rfTransferredLastTick;
+        
+        // changes made since the last exchange, dumps first, then the deltas
+        private boolean liquidDumped = false;
+        private boolean vaporDumped = false;
+        private long liquidDelta = 0;
+        private long vaporDelta = 0;
+        // liquid handed out from the front copy that had boiled off by the time it was applied, taken out of the next exchange instead
+        private long liquidDebt = 0;
+        @Nullable
+        private ReactorModeratorRegistry.IModeratorProperties moderatorProperties;
+        @Nullable
+        private FluidTransitionRegistry.ITransitionProperties transitionProperties;
+        
+        private FrontCoolantTank(ICoolantTank coolantTank) {
+            this.coolantTank = coolantTank;
+        }
+        
+        @Override
+        public void dumpLiquid() {
+            liquid = 0;
+            liquidDumped = true;
+            liquidDelta = 0;
+            liquidDebt = 0;
+        }
+        
+        @Override
+        public void dumpVapor() {
+            vapor = 0;
+            vaporDumped = true;
+            vaporDelta = 0;
+        }
+        
+        @Override
+        public long insertLiquid(long amount) {
+            liquid += amount;
+            liquidDelta += amount;
+            return amount;
+        }
+        
+        @Override
+        public long extractLiquid(long amount) {
+            liquid -= amount;
+            liquidDelta -= amount;
+            return amount;
+        }
+        
+        @Override
+        public long insertVapor(long amount) {
+            vapor += amount;
+            vaporDelta += amount;
+            return amount;
+        }
+        
+        @Override
+        public long extractVapor(long amount) {
+            vapor -= amount;
+            vaporDelta -= amount;
+            return amount;
+        }
+        
+        @Override
+        public long liquidAmount() {
+            return liquid;
+        }
+        
+        @Override
+        public long vaporAmount() {
+            return vapor;
+        }
+        
+        @Override
+        public long perSideCapacity() {
+            return coolantTank.perSideCapacity();
+        }
+        
+        @Override
+        public void setModeratorProperties(ReactorModeratorRegistry.IModeratorProperties moderatorProperties) {
+            this.moderatorProperties = moderatorProperties;
+        }
+        
+        @Override
+        public void setTransitionProperties(FluidTransitionRegistry.ITransitionProperties transitionProperties) {
+            this.transitionProperties = transitionProperties;
+        }
+        
+        @Override
+        public long transitionedLastTick() {
+            return transitionedLastTick;
+        }
+        
+        @Override
+        public long maxTransitionedLastTick() {
+            return maxTransitionedLastTick;
+        }
+        
+        @Override
+        public long rfTransferredLastTick() {
+            return rfTransferredLastTick;
+        }
+        
+        private void apply() {
+            if (moderatorProperties != null) {
+                coolantTank.setModeratorProperties(moderatorProperties);
+                moderatorProperties = null;
+            }
+            if (transitionProperties != null) {
+                coolantTank.setTransitionProperties(transitionProperties);
+                transitionProperties = null;
+            }
+            if (liquidDumped) {
+                coolantTank.dumpLiquid();
+                liquidDumped = false;
+            }
+            if (vaporDumped) {
+                coolantTank.dumpVapor();
+                vaporDumped = false;
+            }
+            final long liquidChange = liquidDelta - liquidDebt;
+            if (liquidChange >= 0) {
+                coolantTank.insertLiquid(liquidChange);
+                liquidDebt = 0;
+            } else {
+                final long extracted = Math.min(-liquidChange, coolantTank.liquidAmount());
+                coolantTank.extractLiquid(extracted);
+                liquidDebt = -liquidChange - extracted;
+            }
+            if (vaporDelta >= 0) {
+                // vapor only goes up during a step, so the front copy may have let in more than there is room for now
+                coolantTank.insertVapor(Math.min(vaporDelta, Math.max(0, coolantTank.perSideCapacity() - coolantTank.vaporAmount())));
+            } else {
+                coolantTank.extractVapor(Math.min(-vaporDelta, coolantTank.vaporAmount()));
+            }
+            liquidDelta = 0;
+            vaporDelta = 0;
+        }
+        
+        private void publish() {
+            liquid = Math.max(0, coolantTank.liquidAmount() - liquidDebt);
+            vapor = coolantTank.vaporAmount();
+            transitionedLastTick = coolantTank.transitionedLastTick();
+            maxTransitionedLastTick = coolantTank.maxTransitionedLastTick();
+            rfTransferredLastTick = coolantTank.rfTransferredLastTick();
+        }
+    }
+    
+    private static class FrontFuelTank implements IFuelTank {
+        private final IFuelTank fuelTank;
+        private long capacity;
+        private long fuel;
+        private long waste;
+        private double burnedLastTick;
+        
+        private long fuelDelta = 0;
+        private long wasteDelta = 0;
+        // fuel handed out from the front copy that had been burnt by the time it was applied, taken out of the next exchange instead
+        private long fuelDebt = 0;
+        
+        private FrontFuelTank(IFuelTank fuelTank) {
+            this.fuelTank = fuelTank;
+        }
+        
+        @Override
+        public long capacity() {
+            return capacity;
+        }
+        
+        @Override
+        public long totalStored() {
+            return fuel + waste;
+        }
+        
+        @Override
+        public long fuel() {
+            return fuel;
+        }
+        
+        @Override
+        public long waste() {
+            return waste;
+        }
+        
+        @Override
+        public long insertFuel(long amount, boolean simulated) {
+            amount = Math.max(0, Math.min(amount, capacity - totalStored()));
+            if (!simulated) {
+                fuel += amount;
+                fuelDelta += amount;
+            }
+            return amount;
+        }
+        
+        @Override
+        public long insertWaste(long amount, boolean simulated) {
+            amount = Math.max(0, Math.min(amount, capacity - totalStored()));
+            if (!simulated) {
+                waste += amount;
+                wasteDelta += amount;
+            }
+            return amount;
+        }
+        
+        @Override
+        public long extractFuel(long amount, boolean simulated) {
+            amount = Math.min(fuel, amount);
+            if (!simulated) {
+                fuel -= amount;
+                fuelDelta -= amount;
+            }
+            return amount;
+        }
+        
+        @Override
+        public long extractWaste(long amount, boolean simulated) {
+            amount = Math.min(waste, amount);
+            if (!simulated) {
+                waste -= amount;
+                wasteDelta -= amount;
+            }
+            return amount;
+        }
+        
+        @Override
+        public double burnedLastTick() {
+            return burnedLastTick;
+        }
+        
+        private void apply() {
+            // burning only turns fuel into waste, so waste taken from the front copy is still there, and extractions go first to make room for insertions
+            if (wasteDelta < 0) {
+                fuelTank.extractWaste(-wasteDelta, false);
+            }
+            final long fuelChange = fuelDelta - fuelDebt;
+            if (fuelChange < 0) {
+                final long extracted = fuelTank.extractFuel(-fuelChange, false);
+                fuelDebt = -fuelChange - extracted;
+            } else {
+                fuelTank.insertFuel(fuelChange, false);
+                fuelDebt = 0;
+            }
+            if (wasteDelta > 0) {
+                fuelTank.insertWaste(wasteDelta, false);
+            }
+            fuelDelta = 0;
+            wasteDelta = 0;
+        }
+        
+        private void publish() {
+            capacity = fuelTank.capacity();
+            fuel = Math.max(0, fuelTank.fuel() - fuelDebt);
+            waste = fuelTank.waste();
+            burnedLastTick = fuelTank.burnedLastTick();
+        }
+    }
+}
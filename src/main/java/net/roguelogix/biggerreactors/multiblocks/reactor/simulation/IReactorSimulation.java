@@ -21,6 +21,16 @@ public interface IReactorSimulation extends IPhosphophylliteSerializable, IDebug
      */
     void tick(boolean active);
     
+    /**
+     * equivalent to calling {@link #tick} that many times, but allowed to reuse irradiation and integrate over many ticks at once
+     * for catching up a reactor that wasn't ticked, or simulating a design ahead of time
+     */
+    default void tickMany(int ticks, boolean active) {
+        for (int i = 0; i < ticks; i++) {
+            tick(active);
+        }
+    }
+    
     @Nullable
     IBattery battery();
     
@@ -50,6 +60,23 @@ public interface IReactorSimulation extends IPhosphophylliteSerializable, IDebug
         return true;
     }
     
+    /**
+     * Swaps the moderator of an interior block without rebuilding the simulation, fuel and heat carry on as they are
+     * null is the default moderator
+     *
+     * @return false if this simulation can't, it has to be rebuilt from an updated description instead
+     */
+    default boolean setModeratorProperties(int x, int y, int z, @Nullable ReactorModeratorRegistry.IModeratorProperties properties) {
+        return false;
+    }
+    
+    /**
+     * 0 is full fidelity, it irradiates once every 2^level ticks while the server is behind, see {@link net.roguelogix.biggerreactors.multiblocks.reactor.simulation.base.SimulationGovernor}
+     */
+    default int fidelityLevel() {
+        return 0;
+    }
+    
     @NotNull
     @Override
     PhosphophylliteCompound save();
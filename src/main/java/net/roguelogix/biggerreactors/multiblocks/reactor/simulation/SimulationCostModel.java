@@ -0,0 +1,311 @@
+package net.roguelogix.biggerreactors.multiblocks.reactor.simulation;
+
+import net.roguelogix.biggerreactors.Config;
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.accellerated.ocl.CLUtil;
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.base.SimUtil;
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.cpu.IrradiationScheduler;
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.cpu.RayTable;
+import net.roguelogix.biggerreactors.registries.ReactorModeratorRegistry;
+import net.roguelogix.phosphophyllite.serialization.PhosphophylliteCompound;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Per host tick time of each full pass backend, measured on two reactors at startup and fit to a fixed cost plus a cost per ray step per Y level
+ * {@link SimulationDescription.Builder} uses it to pick the backend that costs the server thread the least, instead of fixed size thresholds
+ */
+public class SimulationCostModel {
+    
+    private static final Logger LOGGER = LogManager.getLogger("BiggerReactors/Reactor/CostModel");
+    
+    // bump when the measurement changes, so old calibrations are redone
+    private static final int VERSION = 2;
+    private static final int WARMUP_TICKS = 10;
+    private static final int MEASURED_TICKS = 20;
+    private static final ReactorModeratorRegistry.ModeratorProperties[] CALIBRATION_MODERATORS = {
+            new ReactorModeratorRegistry.ModeratorProperties(0.10, 0.50, 2.00, 2.00),
+            new ReactorModeratorRegistry.ModeratorProperties(0.33, 0.50, 1.33, 0.60),
+            new ReactorModeratorRegistry.ModeratorProperties(0.05, 0.25, 1.75, 1.00),
+    };
+    
+    public enum Backend {
+        FULL_PASS(false),
+        OFF_THREAD(true),
+        MULTI_THREADED(true),
+        ACCELERATED(true),
+        ;
+        
+        // irradiates off of the server thread, which only waits on it once it overruns the irradiation deadline
+        public final boolean async;
+        
+        Backend(boolean async) {
+            this.async = async;
+        }
+    }
+    
+    @Nullable
+    private static volatile SimulationCostModel current;
+    
+    // another simulation used the irradiation workers while measuring, the measurements can't be trusted
+    private static class ContendedException extends RuntimeException {
+        private ContendedException() {
+            super("Other reactor simulations were irradiating during calibration");
+        }
+    }
+    
+    private final String host;
+    // NaN for backends that weren't available when calibrated
+    private final double[] fixedNanos = new double[Backend.values().length];
+    private final double[] stepNanos = new double[Backend.values().length];
+    
+    private SimulationCostModel(String host) {
+        this.host = host;
+        Arrays.fill(fixedNanos, Double.NaN);
+        Arrays.fill(stepNanos, Double.NaN);
+    }
+    
+    /**
+     * null until a calibration is loaded or finished, builders fall back to fixed thresholds until then
+     */
+    @Nullable
+    public static SimulationCostModel current() {
+        return current;
+    }
+    
+    /**
+     * Loads the calibration from the file if it was made on this host with the same settings, otherwise calibrates and saves it to the file
+     * Takes a few seconds when it calibrates, call it before any reactor ticks, as they share the worker pools being measured
+     * If another simulation irradiated during the measurements, nothing is saved and builders keep using the fixed thresholds
+     */
+    public static void loadOrCalibrate(SimulationDescription.Builder builder, Path file) {
+        final var host = hostDescription(builder);
+        if (Files.exists(file)) {
+            try {
+                final var loaded = load(new PhosphophylliteCompound(Files.readAllBytes(file)));
+                if (loaded.host.equals(host)) {
+                    current = loaded;
+                    LOGGER.info("Loaded reactor simulation calibration " + loaded);
+                    return;
+                }
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("Failed to load reactor simulation calibration, recalibrating", e);
+            }
+        }
+        final SimulationCostModel calibrated;
+        try {
+            calibrated = calibrate(builder, host);
+        } catch (ContendedException e) {
+            LOGGER.warn("Discarded reactor simulation calibration, other reactors were irradiating, it will be redone next start");
+            return;
+        }
+        current = calibrated;
+        LOGGER.info("Calibrated reactor simulation " + calibrated);
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Files.write(file, calibrated.save().toROBN());
+        } catch (IOException e) {
+            LOGGER.warn("Failed to save reactor simulation calibration", e);
+        }
+    }
+    
+    /**
+     * Everything a calibration depends on, if any of it changes the calibration is redone
+     */
+    private static String hostDescription(SimulationDescription.Builder builder) {
+        return "version=" + VERSION +
+                ", processors=" + Runtime.getRuntime().availableProcessors() +
+                ", arch=" + System.getProperty("os.arch") +
+                ", jvm=" + System.getProperty("java.vm.name") + " " + System.getProperty("java.vm.version") +
+                ", irradiationThreads=" + Config.CONFIG.Reactor.ModeSpecific.IrradiationThreads +
+                ", rays=" + SimUtil.rays.size() +
+                ", vectorized=" + (builder.allowVectorized() && SimUtil.vectorAPIAvailable) +
+                ", singlePrecision=" + builder.singlePrecision() +
+                ", accelerated=" + (builder.allowAccelerated() && CLUtil.available);
+    }
+    
+    private static SimulationCostModel calibrate(SimulationDescription.Builder builder, String host) {
+        final var model = new SimulationCostModel(host);
+        final var small = calibrationDescription(5, 8, 5);
+        final var large = calibrationDescription(32, 32, 32);
+        final double smallSteps = (double) RayTable.stepCount(small) * small.y();
+        final double largeSteps = (double) RayTable.stepCount(large) * large.y();
+        // the first backend measured would otherwise also pay for compiling the code every backend shares
+        measure(builder.create(Backend.FULL_PASS, large, calibrationConfiguration()), large);
+        for (final var backend : Backend.values()) {
+            if (backend == Backend.ACCELERATED && !(builder.allowAccelerated() && CLUtil.available)) {
+                continue;
+            }
+            try {
+                final double smallNanos = measure(builder.create(backend, small, calibrationConfiguration()), small);
+                final double largeNanos = measure(builder.create(backend, large, calibrationConfiguration()), large);
+                final double perStep = Math.max(0, (largeNanos - smallNanos) / (largeSteps - smallSteps));
+                model.stepNanos[backend.ordinal()] = perStep;
+                model.fixedNanos[backend.ordinal()] = Math.max(0, smallNanos - perStep * smallSteps);
+            } catch (ContendedException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                LOGGER.warn("Failed to calibrate reactor simulation backend " + backend + ", it won't be used", e);
+            }
+        }
+        return model;
+    }
+    
+    /**
+     * Rods and moderators are scattered without any pattern, a regular layout lets rods share results through control rod classes and uniform columns, and the backends would be measured doing far less work than a real reactor
+     */
+    private static SimulationDescription calibrationDescription(int x, int y, int z) {
+        final var description = new SimulationDescription();
+        description.setSize(x, y, z);
+        description.setDefaultIModeratorProperties(ReactorModeratorRegistry.ModeratorProperties.EMPTY_MODERATOR);
+        for (int i = 0; i < x; i++) {
+            for (int k = 0; k < z; k++) {
+                if (scatter(i, 0, k) % 2 == 0) {
+                    description.setControlRod(i, k, true);
+                    continue;
+                }
+                for (int j = 0; j < y; j++) {
+                    description.setModeratorProperties(i, j, k, CALIBRATION_MODERATORS[scatter(i, j + 1, k) % CALIBRATION_MODERATORS.length]);
+                }
+            }
+        }
+        return description;
+    }
+    
+    private static int scatter(int x, int y, int z) {
+        int hash = x * 0x9E3779B1 + y * 0x85EBCA77 + z * 0xC2B2AE3D;
+        hash ^= hash >>> 15;
+        hash *= 0x2C1B3C6D;
+        hash ^= hash >>> 13;
+        return hash & Integer.MAX_VALUE;
+    }
+    
+    private static SimulationConfiguration calibrationConfiguration() {
+        return new SimulationConfiguration(Config.CONFIG.Reactor, 293.15, true);
+    }
+    
+    /**
+     * Median ns of back to back ticks, async backends wait on the previous tick's irradiation so that's included
+     * A multi-threaded simulation submits at most one task to the irradiation scheduler per tick, any more came from somewhere else
+     */
+    private static double measure(IReactorSimulation simulation, SimulationDescription description) {
+        simulation.fuelTank().insertFuel(simulation.fuelTank().capacity(), false);
+        final long[] tickNanos = new long[MEASURED_TICKS];
+        for (int i = 0; i < WARMUP_TICKS + MEASURED_TICKS; i++) {
+            // every rod is moved to a different insertion each tick, so no irradiation results are reused or shared between rods
+            for (int x = 0; x < description.x(); x++) {
+                for (int z = 0; z < description.z(); z++) {
+                    final var controlRod = simulation.controlRodAt(x, z);
+                    if (controlRod != null) {
+                        controlRod.setInsertion(scatter(x, i, z) % 90);
+                    }
+                }
+            }
+            final long submissions = IrradiationScheduler.submissions();
+            final long start = System.nanoTime();
+            simulation.tick(true);
+            while (!simulation.readyToTick()) {
+                Thread.onSpinWait();
+            }
+            if (IrradiationScheduler.submissions() - submissions > 1) {
+                throw new ContendedException();
+            }
+            if (i >= WARMUP_TICKS) {
+                tickNanos[i - WARMUP_TICKS] = System.nanoTime() - start;
+            }
+        }
+        Arrays.sort(tickNanos);
+        return tickNanos[MEASURED_TICKS / 2];
+    }
+    
+    public boolean calibrated(Backend backend) {
+        return !Double.isNaN(stepNanos[backend.ordinal()]);
+    }
+    
+    /**
+     * Wall time (ns) of one tick's irradiation
+     */
+    public double predictedNanos(Backend backend, long steps) {
+        return fixedNanos[backend.ordinal()] + stepNanos[backend.ordinal()] * steps;
+    }
+    
+    /**
+     * Time (ns) the server thread spends on one tick's irradiation, async backends only cost their handoff until they overrun the deadline
+     */
+    public double predictedServerNanos(Backend backend, long steps) {
+        final double nanos = predictedNanos(backend, steps);
+        if (!backend.async) {
+            return nanos;
+        }
+        final double deadlineNanos = Config.CONFIG.Reactor.ModeSpecific.IrradiationDeadline * 1_000_000;
+        return fixedNanos[backend.ordinal()] + Math.max(0, nanos - deadlineNanos);
+    }
+    
+    /**
+     * The allowed backend with the lowest predicted server thread time, then the lowest wall time
+     */
+    public Backend cheapest(SimulationDescription description, boolean allowOffThread, boolean allowMultiThread, boolean allowAccelerated) {
+        final long steps = RayTable.stepCount(description) * description.y();
+        Backend best = Backend.FULL_PASS;
+        double bestServerNanos = Double.POSITIVE_INFINITY;
+        double bestNanos = Double.POSITIVE_INFINITY;
+        for (final var backend : Backend.values()) {
+            final boolean allowed = switch (backend) {
+                case FULL_PASS -> true;
+                case OFF_THREAD -> allowOffThread;
+                case MULTI_THREADED -> allowMultiThread;
+                case ACCELERATED -> allowAccelerated;
+            };
+            if (!allowed || !calibrated(backend)) {
+                continue;
+            }
+            final double serverNanos = predictedServerNanos(backend, steps);
+            final double nanos = predictedNanos(backend, steps);
+            if (serverNanos < bestServerNanos || (serverNanos == bestServerNanos && nanos < bestNanos)) {
+                best = backend;
+                bestServerNanos = serverNanos;
+                bestNanos = nanos;
+            }
+        }
+        return best;
+    }
+    
+    private PhosphophylliteCompound save() {
+        final var compound = new PhosphophylliteCompound();
+        compound.put("host", host);
+        for (final var backend : Backend.values()) {
+            compound.put(backend + "FixedNanos", fixedNanos[backend.ordinal()]);
+            compound.put(backend + "StepNanos", stepNanos[backend.ordinal()]);
+        }
+        return compound;
+    }
+    
+    private static SimulationCostModel load(PhosphophylliteCompound compound) {
+        final var model = new SimulationCostModel(compound.getString("host"));
+        for (final var backend : Backend.values()) {
+            model.fixedNanos[backend.ordinal()] = compound.getDouble(backend + "FixedNanos");
+            model.stepNanos[backend.ordinal()] = compound.getDouble(backend + "StepNanos");
+        }
+        return model;
+    }
+    
+    @Override
+    public String toString() {
+        final var builder = new StringBuilder("{");
+        for (final var backend : Backend.values()) {
+            if (!calibrated(backend)) {
+                continue;
+            }
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append(backend).append(": ").append(String.format("%.0fns + %.3fns/step", fixedNanos[backend.ordinal()], stepNanos[backend.ordinal()]));
+        }
+        return builder.append('}').toString();
+    }
+}
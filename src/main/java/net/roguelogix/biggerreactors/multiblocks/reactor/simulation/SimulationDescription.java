@@ -1,12 +1,18 @@
 package net.roguelogix.biggerreactors.multiblocks.reactor.simulation;
 
+import it.unimi.dsi.fastutil.bytes.ByteArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
 import net.roguelogix.biggerreactors.Config;
 import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.accellerated.ocl.CLUtil;
 import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.accellerated.ocl.SingleQueueOpenCL12Simulation;
 import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.accellerated.vk.Vk13Simulation;
 import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.accellerated.vk.VkUtil;
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.base.SimUtil;
 import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.cpu.FullPassReactorSimulation;
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.cpu.StochasticReactorSimulation;
 import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.cpu.TimeSlicedReactorSimulation;
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.cpu.VectorizedReactorSimulation;
 import net.roguelogix.biggerreactors.registries.ReactorModeratorRegistry;
 import net.roguelogix.phosphophyllite.serialization.IPhosphophylliteSerializable;
 import net.roguelogix.phosphophyllite.serialization.PhosphophylliteCompound;
@@ -16,6 +22,8 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 
@@ -34,10 +42,16 @@ public class SimulationDescription implements IPhosphophylliteSerializable {
     @Nonnull
     // accessing this constant may cause a classloading crash when loaded w/o forge, need to check that and move stuff as needed
     ReactorModeratorRegistry.IModeratorProperties defaultModeratorProperties = ReactorModeratorRegistry.ModeratorProperties.EMPTY_MODERATOR;
+    // every moderator set so far, a block's moderator code is its index in here + 1, 0 for none
+    private final ArrayList<ReactorModeratorRegistry.IModeratorProperties> moderatorPalette = new ArrayList<>();
+    private final Reference2IntOpenHashMap<ReactorModeratorRegistry.IModeratorProperties> moderatorPaletteCodes = new Reference2IntOpenHashMap<>();
+    // moderator code of each block, at ((x * z) + z) * y + y, moved to wideModeratorCodes once the palette outgrows a byte
     @Nullable
-    ReactorModeratorRegistry.IModeratorProperties[][][] moderatorProperties = null;
+    private byte[] moderatorCodes = null;
     @Nullable
-    boolean[][][] manifoldLocations = null;
+    private char[] wideModeratorCodes = null;
+    @Nullable
+    private BitSet manifoldLocations = null;
     int manifoldCount = 0;
     @Nullable
     boolean[][] controlRodLocations = null;
@@ -49,15 +63,18 @@ public class SimulationDescription implements IPhosphophylliteSerializable {
         this.x = x;
         this.y = y;
         this.z = z;
-        if (moderatorProperties == null || moderatorProperties.length < x || moderatorProperties[0].length < y || moderatorProperties[0][0].length < z) {
-            moderatorProperties = new ReactorModeratorRegistry.IModeratorProperties[x][y][z];
-        }
-        if (manifoldLocations == null || manifoldLocations.length < x || manifoldLocations[0].length < y || manifoldLocations[0][0].length < z) {
-            manifoldLocations = new boolean[x][y][z];
-        }
-        if (controlRodLocations == null || controlRodLocations.length < x || controlRodLocations[0].length < z) {
-            controlRodLocations = new boolean[x][z];
-        }
+        moderatorPalette.clear();
+        moderatorPaletteCodes.clear();
+        moderatorCodes = new byte[x * y * z];
+        wideModeratorCodes = null;
+        manifoldLocations = new BitSet(x * y * z);
+        manifoldCount = 0;
+        controlRodLocations = new boolean[x][z];
+        controlRodCount = 0;
+    }
+    
+    private int index(int x, int y, int z) {
+        return (((x * this.z) + z) * this.y) + y;
     }
     
     public void setDefaultIModeratorProperties(ReactorModeratorRegistry.IModeratorProperties properties) {
@@ -65,19 +82,60 @@ public class SimulationDescription implements IPhosphophylliteSerializable {
     }
     
     public void setModeratorProperties(int x, int y, int z, @Nullable ReactorModeratorRegistry.IModeratorProperties properties) {
-        if (moderatorProperties == null) {
+        if (this.x == 0) {
             if (properties == null) {
                 return;
             }
             throw new IllegalStateException("Size must be set before adding moderators");
         }
-        if (x < 0 || x >= moderatorProperties.length || y < 0 || y >= moderatorProperties[0].length || z < 0 || z >= moderatorProperties[0][0].length) {
+        if (x < 0 || x >= this.x || y < 0 || y >= this.y || z < 0 || z >= this.z) {
             if (properties == null) {
                 return;
             }
             throw new IndexOutOfBoundsException("Attempt to add moderator outside of reactor bounds");
         }
-        moderatorProperties[x][y][z] = properties;
+        setModeratorCode(index(x, y, z), properties == null ? 0 : moderatorCode(properties));
+    }
+    
+    /**
+     * Adds it to the palette if it isn't already
+     */
+    private int moderatorCode(ReactorModeratorRegistry.IModeratorProperties properties) {
+        // properties don't define equality, the registry hands out one instance per block
+        int code = moderatorPaletteCodes.getInt(properties);
+        if (code == 0) {
+            moderatorPalette.add(properties);
+            code = moderatorPalette.size();
+            if (code > Character.MAX_VALUE) {
+                throw new IllegalStateException("Too many moderator types");
+            }
+            moderatorPaletteCodes.put(properties, code);
+        }
+        return code;
+    }
+    
+    private void setModeratorCode(int index, int code) {
+        if (moderatorCodes != null) {
+            if (code <= 0xFF) {
+                moderatorCodes[index] = (byte) code;
+                return;
+            }
+            wideModeratorCodes = new char[moderatorCodes.length];
+            for (int i = 0; i < moderatorCodes.length; i++) {
+                wideModeratorCodes[i] = (char) (moderatorCodes[i] & 0xFF);
+            }
+            moderatorCodes = null;
+        }
+        assert wideModeratorCodes != null;
+        wideModeratorCodes[index] = (char) code;
+    }
+    
+    private int moderatorCodeAt(int index) {
+        if (moderatorCodes != null) {
+            return moderatorCodes[index] & 0xFF;
+        }
+        assert wideModeratorCodes != null;
+        return wideModeratorCodes[index];
     }
     
     public void setControlRod(int x, int z, boolean isControlRod) {
@@ -87,7 +145,7 @@ public class SimulationDescription implements IPhosphophylliteSerializable {
             }
             throw new IllegalStateException("Size must be set before adding control rods");
         }
-        if (x < 0 || x >= controlRodLocations.length || z < 0 || z >= controlRodLocations[0].length) {
+        if (x < 0 || x >= this.x || z < 0 || z >= this.z) {
             if (!isControlRod) {
                 return;
             }
@@ -106,56 +164,98 @@ public class SimulationDescription implements IPhosphophylliteSerializable {
             }
             throw new IllegalStateException("Size must be set before adding manifolds");
         }
-        if (x < 0 || x >= manifoldLocations.length || y < 0 || y >= manifoldLocations[0].length || z < 0 || z >= manifoldLocations[0][0].length) {
+        if (x < 0 || x >= this.x || y < 0 || y >= this.y || z < 0 || z >= this.z) {
             if (!manifold) {
                 return;
             }
             throw new IndexOutOfBoundsException("Attempt to add manifold outside of reactor bounds");
         }
-        if (manifoldLocations[x][y][z] != manifold) {
+        final int index = index(x, y, z);
+        if (manifoldLocations.get(index) != manifold) {
             manifoldCount += manifold ? 1 : -1;
         }
-        manifoldLocations[x][y][z] = manifold;
+        manifoldLocations.set(index, manifold);
     }
     
-    public record Builder(boolean experimental, boolean fullPass, boolean allowOffThread, boolean allowMultiThread, boolean allowAccelerated) {
+    public record Builder(boolean experimental, boolean fullPass, boolean allowOffThread, boolean allowMultiThread, boolean allowAccelerated, boolean allowVectorized, boolean singlePrecision, boolean fullyAsync) {
+        
+        public Builder(boolean experimental, boolean fullPass, boolean allowOffThread, boolean allowMultiThread, boolean allowAccelerated) {
+            this(experimental, fullPass, allowOffThread, allowMultiThread, allowAccelerated, false, false, false);
+        }
+        
+        public Builder(boolean experimental, boolean fullPass, boolean allowOffThread, boolean allowMultiThread, boolean allowAccelerated, boolean allowVectorized) {
+            this(experimental, fullPass, allowOffThread, allowMultiThread, allowAccelerated, allowVectorized, false, false);
+        }
+        
+        public Builder(boolean experimental, boolean fullPass, boolean allowOffThread, boolean allowMultiThread, boolean allowAccelerated, boolean allowVectorized, boolean singlePrecision) {
+            this(experimental, fullPass, allowOffThread, allowMultiThread, allowAccelerated, allowVectorized, singlePrecision, false);
+        }
         
         public IReactorSimulation build(SimulationDescription description, SimulationConfiguration configuration) {
             description.ensureValid();
-    
+            
             if (experimental && VkUtil.available) {
                 return new Vk13Simulation(description, configuration);
             }
+            if (fullyAsync && allowOffThread) {
+                // the wrapper already runs each step off thread, an async simulation inside it would block a worker on work queued behind it
+                return new AsyncReactorSimulation(fullPass ? createInline(description, configuration) : buildSimulation(description, configuration), description);
+            }
+            return buildSimulation(description, configuration);
+        }
+        
+        private IReactorSimulation createInline(SimulationDescription description, SimulationConfiguration configuration) {
+            if (allowVectorized && SimUtil.vectorAPIAvailable) {
+                return new VectorizedReactorSimulation(description, configuration, true, singlePrecision, true);
+            }
+            return new FullPassReactorSimulation(description, configuration, singlePrecision);
+        }
+        
+        private IReactorSimulation buildSimulation(SimulationDescription description, SimulationConfiguration configuration) {
             if (!fullPass) {
+                // sampling is built on the full pass simulation, so it shares its moderator type limit
+                if (Config.CONFIG.Reactor.ModeSpecific.StochasticSampleBudget > 0 && description.moderatorTypeCount() < 127) {
+                    return new StochasticReactorSimulation(description, configuration);
+                }
                 return new TimeSlicedReactorSimulation(description, configuration);
             }
             
+            final var costModel = SimulationCostModel.current();
+            if (costModel != null) {
+                return create(costModel.cheapest(description, allowOffThread, allowMultiThread, allowAccelerated && CLUtil.available), description, configuration);
+            }
+            
+            // not calibrated (yet), fixed thresholds
             var fuelRods = description.controlRodCount * description.y;
             if (allowAccelerated && fuelRods >= 8182) {
                 if (CLUtil.available) {
-                    return new SingleQueueOpenCL12Simulation(description, configuration);
+                    return create(SimulationCostModel.Backend.ACCELERATED, description, configuration);
                 }
             }
             
             var controlRodBatches = description.controlRodCount / Config.CONFIG.Reactor.ModeSpecific.ControlRodBatchSize;
             if (allowMultiThread && controlRodBatches >= 2) {
-                return new FullPassReactorSimulation.MultiThreaded(description, configuration, false);
+                return create(SimulationCostModel.Backend.MULTI_THREADED, description, configuration);
             }
             if (allowOffThread) {
-                return new FullPassReactorSimulation.MultiThreaded(description, configuration,true);
+                return create(SimulationCostModel.Backend.OFF_THREAD, description, configuration);
             }
-            return new FullPassReactorSimulation(description, configuration);
+            return create(SimulationCostModel.Backend.FULL_PASS, description, configuration);
+        }
+        
+        public IReactorSimulation create(SimulationCostModel.Backend backend, SimulationDescription description, SimulationConfiguration configuration) {
+            final boolean vectorized = allowVectorized && SimUtil.vectorAPIAvailable;
+            return switch (backend) {
+                case FULL_PASS -> new FullPassReactorSimulation(description, configuration, singlePrecision);
+                case OFF_THREAD -> vectorized ? new VectorizedReactorSimulation(description, configuration, true, singlePrecision) : new FullPassReactorSimulation.MultiThreaded(description, configuration, true, singlePrecision);
+                case MULTI_THREADED -> vectorized ? new VectorizedReactorSimulation(description, configuration, false, singlePrecision) : new FullPassReactorSimulation.MultiThreaded(description, configuration, false, singlePrecision);
+                case ACCELERATED -> new SingleQueueOpenCL12Simulation(description, configuration);
+            };
         }
     }
     
     public void ensureValid() {
-        if (controlRodLocations == null) {
-            throw new IllegalArgumentException();
-        }
-        if (moderatorProperties == null) {
-            throw new IllegalArgumentException();
-        }
-        if (manifoldLocations == null) {
+        if (x == 0) {
             throw new IllegalArgumentException();
         }
     }
@@ -185,73 +285,119 @@ public class SimulationDescription implements IPhosphophylliteSerializable {
         return controlRodLocations[x][z];
     }
     
+    public int moderatorTypeCount() {
+        // the palette keeps moderators that have since been overwritten
+        final var used = new boolean[moderatorPalette.size() + 1];
+        int types = 0;
+        final int blocks = x * y * z;
+        for (int i = 0; i < blocks; i++) {
+            final int code = moderatorCodeAt(i);
+            if (code != 0 && !used[code]) {
+                used[code] = true;
+                types++;
+            }
+        }
+        return types;
+    }
+    
     public int manifoldCount() {
         return manifoldCount;
     }
     
     @Nullable
     public ReactorModeratorRegistry.IModeratorProperties moderatorPropertiesAt(int x, int y, int z) {
-        assert moderatorProperties != null;
-        return moderatorProperties[x][y][z];
+        final int code = moderatorCodeAt(index(x, y, z));
+        return code == 0 ? null : moderatorPalette.get(code - 1);
     }
     
     public boolean isManifoldAt(int x, int y, int z) {
         assert manifoldLocations != null;
-        return manifoldLocations[x][y][z];
+        return manifoldLocations.get(index(x, y, z));
     }
     
+    // moderatorRuns codes, anything above is an index into the moderator palette, offset by PALETTE_CODE_OFFSET
+    private static final int CONTROL_ROD_CODE = 0;
+    private static final int MANIFOLD_CODE = 1;
+    private static final int EMPTY_CODE = 2;
+    private static final int PALETTE_CODE_OFFSET = 3;
+    
+    // 1 is the nested list format, 2 is palette + run length encoded
+    private static final int SAVE_VERSION = 2;
+    
     @Override
     @Nullable
     public PhosphophylliteCompound save() {
         final var compound = new PhosphophylliteCompound();
-        if (moderatorProperties == null || manifoldLocations == null || controlRodLocations == null) {
+        if (manifoldLocations == null || controlRodLocations == null) {
             return null;
         }
-        ArrayList<ReactorModeratorRegistry.IModeratorProperties> moderatorProperties = new ArrayList<>();
-        ArrayList<ArrayList<ArrayList<Integer>>> moderatorIndexes = new ArrayList<>();
+        // only what's still in the reactor, in the order it first appears
+        final ArrayList<ReactorModeratorRegistry.IModeratorProperties> palette = new ArrayList<>();
+        final int[] paletteIndices = new int[moderatorPalette.size() + 1];
+        Arrays.fill(paletteIndices, -1);
+        
+        // columns are walked bottom to top, so control rods and uniform columns are a single run
+        final var runs = new ByteArrayList();
+        int runCode = -1;
+        int runLength = 0;
+        int index = 0;
         for (int i = 0; i < x; i++) {
-            ArrayList<ArrayList<Integer>> moderatorIndexesX = new ArrayList<>();
-            for (int j = 0; j < y; j++) {
-                ArrayList<Integer> moderatorIndexesXY = new ArrayList<>();
-                for (int k = 0; k < z; k++) {
-                    moderatorIndexesXY.add(-1);
-                
-                    ReactorModeratorRegistry.IModeratorProperties properties = this.moderatorProperties[i][j][k];
-                    if (properties != null) {
-                        int index = moderatorProperties.indexOf(properties);
-                        if (index == -1) {
-                            index = moderatorProperties.size();
-                            moderatorProperties.add(properties);
+            for (int k = 0; k < z; k++) {
+                final boolean controlRod = controlRodLocations[i][k];
+                for (int j = 0; j < y; j++, index++) {
+                    final int code;
+                    if (controlRod) {
+                        code = CONTROL_ROD_CODE;
+                    } else if (manifoldLocations.get(index)) {
+                        code = MANIFOLD_CODE;
+                    } else {
+                        final int moderatorCode = moderatorCodeAt(index);
+                        if (moderatorCode == 0) {
+                            code = EMPTY_CODE;
+                        } else {
+                            int paletteIndex = paletteIndices[moderatorCode];
+                            if (paletteIndex == -1) {
+                                paletteIndex = palette.size();
+                                palette.add(moderatorPalette.get(moderatorCode - 1));
+                                paletteIndices[moderatorCode] = paletteIndex;
+                            }
+                            code = paletteIndex + PALETTE_CODE_OFFSET;
                         }
-                        moderatorIndexesXY.set(moderatorIndexesXY.size() - 1, index);
-                    }
-                    if (this.manifoldLocations[i][j][k]) {
-                        moderatorIndexesXY.set(moderatorIndexesXY.size() - 1, -2);
                     }
-                }
-                moderatorIndexesX.add(moderatorIndexesXY);
-            }
-            for (int j = 0; j < z; j++) {
-                if(this.controlRodLocations[i][j]){
-                    for (int k = 0; k < y; k++) {
-                        moderatorIndexesX.get(k).set(j, -3);
+                    if (code != runCode) {
+                        if (runLength != 0) {
+                            writeVarInt(runs, runCode);
+                            writeVarInt(runs, runLength);
+                        }
+                        runCode = code;
+                        runLength = 0;
                     }
+                    runLength++;
                 }
             }
-            moderatorIndexes.add(moderatorIndexesX);
         }
+        writeVarInt(runs, runCode);
+        writeVarInt(runs, runLength);
         
-        
+        compound.put("version", SAVE_VERSION);
         compound.put("x", x);
         compound.put("y", y);
         compound.put("z", z);
-        compound.put("moderatorProperties", moderatorProperties);
-        compound.put("moderatorIndices", moderatorIndexes);
+        compound.put("moderatorProperties", palette);
+        compound.put("moderatorRuns", runs.toByteArray());
         compound.put("defaultModeratorProperties", defaultModeratorProperties.toROBNMap());
         
         return compound;
     }
     
+    private static void writeVarInt(ByteArrayList bytes, int value) {
+        while ((value & ~0x7F) != 0) {
+            bytes.add((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        bytes.add((byte) value);
+    }
+    
     @Override
     public void load(@Nonnull PhosphophylliteCompound compound) {
         setSize(compound.getInt("x"), compound.getInt("y"), compound.getInt("z"));
@@ -281,7 +427,116 @@ public class SimulationDescription implements IPhosphophylliteSerializable {
                 moderatorProperties.add(new ReactorModeratorRegistry.ModeratorProperties(absorption, heatEfficiency, moderation, heatConductivity));
             }
         }
-        List<?> moderatorIndices = compound.getList("moderatorIndices");
+        if (compound.getInt("version") >= 2) {
+            loadModeratorRuns(compound.getByteArray("moderatorRuns"), moderatorProperties);
+        } else {
+            loadModeratorIndices(compound.getList("moderatorIndices"), moderatorProperties);
+        }
+        
+        {
+            Map<?, ?> map = compound.getMap("defaultModeratorProperties");
+            if (map.isEmpty()) {
+                throw new IllegalArgumentException("Malformed Binary");
+            }
+            double absorption = 0;
+            if (map.get("absorption") instanceof Number num) {
+                absorption = num.doubleValue();
+            }
+            double heatEfficiency = 0;
+            if (map.get("heatEfficiency") instanceof Number num) {
+                heatEfficiency = num.doubleValue();
+            }
+            double moderation = 1;
+            if (map.get("moderation") instanceof Number num) {
+                moderation = num.doubleValue();
+            }
+            double heatConductivity = 0;
+            if (map.get("heatConductivity") instanceof Number num) {
+                heatConductivity = num.doubleValue();
+            }
+            setDefaultIModeratorProperties(new ReactorModeratorRegistry.ModeratorProperties(absorption, heatEfficiency, moderation, heatConductivity));
+        }
+    }
+    
+    /**
+     * Every run is read and checked before anything is set, so a corrupt save is rejected as a whole
+     */
+    private void loadModeratorRuns(byte[] runs, ArrayList<ReactorModeratorRegistry.ModeratorProperties> palette) {
+        final int[] moderatorCodes = new int[palette.size()];
+        for (int i = 0; i < palette.size(); i++) {
+            moderatorCodes[i] = moderatorCode(palette.get(i));
+        }
+        final var runCodes = new IntArrayList();
+        final var runLengths = new IntArrayList();
+        final long volume = (long) x * y * z;
+        long total = 0;
+        int position = 0;
+        while (position < runs.length) {
+            // two varints, packed in a long as position and value
+            long read = readVarInt(runs, position);
+            final int runCode = (int) read;
+            read = readVarInt(runs, (int) (read >>> 32));
+            final int runLength = (int) read;
+            position = (int) (read >>> 32);
+            if (runCode < 0 || runCode >= palette.size() + PALETTE_CODE_OFFSET || runLength <= 0) {
+                throw new IllegalArgumentException("Malformed Binary");
+            }
+            total += runLength;
+            if (total > volume) {
+                throw new IllegalArgumentException("Malformed Binary");
+            }
+            runCodes.add(runCode);
+            runLengths.add(runLength);
+        }
+        if (total != volume) {
+            throw new IllegalArgumentException("Malformed Binary");
+        }
+        
+        int index = 0;
+        int run = -1;
+        int runCode = 0;
+        int runRemaining = 0;
+        for (int i = 0; i < x; i++) {
+            for (int k = 0; k < z; k++) {
+                for (int j = 0; j < y; j++, index++) {
+                    if (runRemaining == 0) {
+                        run++;
+                        runCode = runCodes.getInt(run);
+                        runRemaining = runLengths.getInt(run);
+                    }
+                    runRemaining--;
+                    if (j == 0) {
+                        setControlRod(i, k, runCode == CONTROL_ROD_CODE);
+                    }
+                    setManifold(i, j, k, runCode == MANIFOLD_CODE);
+                    setModeratorCode(index, runCode >= PALETTE_CODE_OFFSET ? moderatorCodes[runCode - PALETTE_CODE_OFFSET] : 0);
+                }
+            }
+        }
+    }
+    
+    /**
+     * @return the value in the low 32 bits, the position after it in the high 32 bits
+     */
+    private static long readVarInt(byte[] bytes, int position) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            if (position >= bytes.length) {
+                throw new IllegalArgumentException("Malformed Binary");
+            }
+            final byte b = bytes[position++];
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return ((long) position << 32) | (value & 0xFFFFFFFFL);
+            }
+        }
+        throw new IllegalArgumentException("Malformed Binary");
+    }
+    
+    /**
+     * Version 1 saves, a nested list of x, y, z moderator indices
+     */
+    private void loadModeratorIndices(List<?> moderatorIndices, ArrayList<ReactorModeratorRegistry.ModeratorProperties> moderatorProperties) {
         if (moderatorIndices.size() != x) {
             throw new IllegalArgumentException("Malformed Binary");
         }
@@ -310,29 +565,5 @@ public class SimulationDescription implements IPhosphophylliteSerializable {
                 }
             }
         }
-        
-        {
-            Map<?, ?> map = compound.getMap("defaultModeratorProperties");
-            if (map.isEmpty()) {
-                throw new IllegalArgumentException("Malformed Binary");
-            }
-            double absorption = 0;
-            if (map.get("absorption") instanceof Number num) {
-                absorption = num.doubleValue();
-            }
-            double heatEfficiency = 0;
-            if (map.get("heatEfficiency") instanceof Number num) {
-                heatEfficiency = num.doubleValue();
-            }
-            double moderation = 1;
-            if (map.get("moderation") instanceof Number num) {
-                moderation = num.doubleValue();
-            }
-            double heatConductivity = 0;
-            if (map.get("heatConductivity") instanceof Number num) {
-                heatConductivity = num.doubleValue();
-            }
-            setDefaultIModeratorProperties(new ReactorModeratorRegistry.ModeratorProperties(absorption, heatEfficiency, moderation, heatConductivity));
-        }
     }
 }
@@ -4,6 +4,7 @@ import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.SimulationCo
 import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.SimulationDescription;
 import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.base.SimUtil;
 import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.cpu.FullPassReactorSimulation;
+import net.roguelogix.biggerreactors.registries.ReactorModeratorRegistry;
 import org.lwjgl.PointerBuffer;
 import org.lwjgl.system.MemoryStack;
 import org.lwjgl.system.MemoryUtil;
@@ -233,6 +234,12 @@ public class SingleQueueOpenCL12Simulation extends FullPassReactorSimulation {
         }
     }
     
+    @Override
+    protected boolean replaceModerator(int x, int y, int z, ReactorModeratorRegistry.IModeratorProperties properties) {
+        // moderator indices were uploaded at construction
+        return false;
+    }
+    
     @Override
     public boolean isAsync() {
         return true;
@@ -297,18 +304,7 @@ public class SingleQueueOpenCL12Simulation extends FullPassReactorSimulation {
             fuelRadAdded /= controlRods.length;
             caseRFAdded /= controlRods.length;
             
-            if (!Double.isNaN(fuelRadAdded)) {
-                if (configuration.fuelRadScalingMultiplier() != 0) {
-                    fuelRadAdded *= configuration.fuelRadScalingMultiplier() * (configuration.fuelRodFuelCapacity() / Math.max(1.0, (double) fuelTank().totalStored()));
-                }
-                fuelFertility += fuelRadAdded;
-            }
-            if (!Double.isNaN(fuelRFAdded)) {
-                fuelHeat.absorbRF(fuelRFAdded);
-            }
-            if (!Double.isNaN(caseRFAdded)) {
-                stackHeat.absorbRF(caseRFAdded);
-            }
+            absorbIrradiation(fuelRFAdded, fuelRadAdded, caseRFAdded);
     
             fuelRFAdded = 0;
             fuelRadAdded = 0;
@@ -5,6 +5,7 @@ import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.SimulationCo
 import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.SimulationDescription;
 import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.base.SimUtil;
 import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.cpu.FullPassReactorSimulation;
+import net.roguelogix.biggerreactors.registries.ReactorModeratorRegistry;
 import net.roguelogix.phosphophyllite.util.NonnullDefault;
 import net.roguelogix.quartz.internal.util.PointerWrapper;
 import org.lwjgl.BufferUtils;
@@ -486,6 +487,12 @@ public class Vk13Simulation extends FullPassReactorSimulation {
         }
     }
     
+    @Override
+    protected boolean replaceModerator(int x, int y, int z, ReactorModeratorRegistry.IModeratorProperties properties) {
+        // moderator indices were uploaded at construction
+        return false;
+    }
+    
     @Override
     public boolean isAsync() {
         return true;
@@ -579,18 +586,7 @@ public class Vk13Simulation extends FullPassReactorSimulation {
         fuelRadAdded /= controlRods.length;
         caseRFAdded /= controlRods.length;
         
-        if (!Double.isNaN(fuelRadAdded)) {
-            if (configuration.fuelRadScalingMultiplier() != 0) {
-                fuelRadAdded *= configuration.fuelRadScalingMultiplier() * (configuration.fuelRodFuelCapacity() / Math.max(1.0, (double) fuelTank().totalStored()));
-            }
-            fuelFertility += fuelRadAdded;
-        }
-        if (!Double.isNaN(fuelRFAdded)) {
-            fuelHeat.absorbRF(fuelRFAdded);
-        }
-        if (!Double.isNaN(caseRFAdded)) {
-            stackHeat.absorbRF(caseRFAdded);
-        }
+        absorbIrradiation(fuelRFAdded, fuelRadAdded, caseRFAdded);
         
         fuelRFAdded = 0;
         fuelRadAdded = 0;
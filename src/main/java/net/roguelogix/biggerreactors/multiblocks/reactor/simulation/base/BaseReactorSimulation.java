@@ -1,5 +1,7 @@
 package net.roguelogix.biggerreactors.multiblocks.reactor.simulation.base;
 
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.roguelogix.biggerreactors.Config;
 import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.SimulationConfiguration;
 import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.IReactorSimulation;
 import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.SimulationDescription;
@@ -9,7 +11,6 @@ import net.roguelogix.phosphophyllite.serialization.PhosphophylliteCompound;
 import net.roguelogix.phosphophyllite.util.HeatBody;
 import org.jetbrains.annotations.NotNull;
 import org.joml.Vector2ic;
-import org.joml.Vector3ic;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -18,14 +19,20 @@ public abstract class BaseReactorSimulation implements IReactorSimulation {
     
     protected final int x, y, z;
     protected final ReactorModeratorRegistry.IModeratorProperties defaultModeratorProperties;
-    protected final ReactorModeratorRegistry.IModeratorProperties[][][] moderatorProperties;
+    // this simulation's instance in each of the tables' moderator slots
+    protected final ReactorModeratorRegistry.IModeratorProperties[] slotModerators;
+    // swapped in after construction, by linear index, the tables only know what it was built with
+    private final Int2ObjectOpenHashMap<ReactorModeratorRegistry.IModeratorProperties> replacedModerators = new Int2ObjectOpenHashMap<>();
     protected final SimUtil.ControlRod[][] controlRodsXZ;
     protected final SimUtil.ControlRod[] controlRods;
     
-    protected final double fuelToCasingRFKT;
+    protected double fuelToCasingRFKT;
     protected final double fuelToManifoldSurfaceArea;
     protected final double stackToCoolantSystemRFKT;
     protected final double casingToAmbientRFKT;
+    // shared with every other simulation of the same reactor
+    protected final SimulationTables tables;
+    private final ReactorModeratorRegistry.IModeratorProperties manifoldProperties;
     
     protected final HeatBody fuelHeat = new HeatBody();
     protected final HeatBody stackHeat = new HeatBody();
@@ -44,6 +51,34 @@ public abstract class BaseReactorSimulation implements IReactorSimulation {
     protected final SimulationConfiguration configuration;
     
     private boolean wasActiveLastTick = false;
+    private boolean irradiationPending = false;
+    
+    // stand-ins for the fuel and stack while working out how heat moves over many ticks
+    private final HeatBody fastForwardFuelHeat = new HeatBody();
+    private final HeatBody fastForwardStackHeat = new HeatBody();
+    
+    private final int steadyStateRefreshInterval;
+    private final double steadyStateHeatTolerance;
+    private final double steadyStateFuelTolerance;
+    private final double steadyStateCoolantTolerance;
+    // inputs of the last full irradiation, and what it added
+    private boolean steadyStateRecorded = false;
+    private double steadyStateFuelHeat;
+    private final double[] steadyStateInsertions;
+    private long steadyStateFuel;
+    private long steadyStateWaste;
+    private long steadyStateCoolant;
+    private double steadyStateFertility;
+    private double steadyStateFuelRFAdded;
+    private double steadyStateFuelRadAdded;
+    private double steadyStateCaseRFAdded;
+    private double steadyStateFuelUsage;
+    private int ticksSinceIrradiation = 0;
+    private boolean reuseIrradiationNextTick = false;
+    private long skippedIrradiations = 0;
+    private long fullIrradiations = 0;
+    private int fidelityLevel = 0;
+    private double radiateNanos = 0;
     
     protected BaseReactorSimulation(SimulationDescription simulationDescription, SimulationConfiguration configuration) {
         this.configuration = configuration;
@@ -52,10 +87,15 @@ public abstract class BaseReactorSimulation implements IReactorSimulation {
         z = simulationDescription.z();
         defaultModeratorProperties = simulationDescription.defaultModeratorProperties();
         
-        // yes this gets trashed immediately, oh well
-        moderatorProperties = new ReactorModeratorRegistry.IModeratorProperties[x][y][z];
         controlRodsXZ = new SimUtil.ControlRod[x][z];
         controlRods = new SimUtil.ControlRod[simulationDescription.controlRodCount()];
+        steadyStateInsertions = new double[controlRods.length];
+        
+        final var modeConfig = Config.CONFIG.Reactor.ModeSpecific;
+        steadyStateRefreshInterval = modeConfig.SteadyStateRefreshInterval;
+        steadyStateHeatTolerance = modeConfig.SteadyStateHeatTolerance;
+        steadyStateFuelTolerance = modeConfig.SteadyStateFuelTolerance;
+        steadyStateCoolantTolerance = modeConfig.SteadyStateCoolantTolerance;
         
         {
             int currentControlRodIndex = 0;
@@ -83,90 +123,31 @@ public abstract class BaseReactorSimulation implements IReactorSimulation {
             manifoldSignalingProperties = coolantTank;
         }
         
-        for (int i = 0; i < x; i++) {
-            for (int j = 0; j < y; j++) {
-                for (int k = 0; k < z; k++) {
-                    var newProperties = simulationDescription.moderatorPropertiesAt(i, j, k);
-                    if (simulationDescription.isManifoldAt(i, j, k)) {
-                        newProperties = manifoldSignalingProperties;
-                    }
-                    if (newProperties == null) {
-                        newProperties = simulationDescription.defaultModeratorProperties();
-                    }
-                    if (controlRodsXZ[i][k] != null) {
-                        newProperties = null;
-                    }
-                    moderatorProperties[i][j][k] = newProperties;
-                }
+        // read straight from the description, the tables are all that's kept of it
+        final SimulationTables.Moderators moderators = (i, j, k) -> {
+            if (controlRodsXZ[i][k] != null) {
+                return null;
             }
-        }
-    
-        fuelTank = new FuelTank(configuration.fuelRodFuelCapacity() * controlRods.length * y);
-        
-        double fuelToCasingRFKT = 0;
-        int fuelToManifoldSurfaceArea = 0;
-        for (SimUtil.ControlRod controlRod : controlRods) {
-            for (int i = 0; i < y; i++) {
-                for (Vector2ic direction : SimUtil.cardinalDirections) {
-                    if (controlRod.x + direction.x() < 0 || controlRod.x + direction.x() >= x || controlRod.z + direction.y() < 0 || controlRod.z + direction.y() >= z) {
-                        fuelToCasingRFKT += configuration.casingHeatTransferRFMKT();
-                        continue;
-                    }
-                    ReactorModeratorRegistry.IModeratorProperties properties = moderatorProperties[controlRod.x + direction.x()][i][controlRod.z + direction.y()];
-                    if (properties != null) {
-                        if (properties == manifoldSignalingProperties) {
-                            // manifold, dynamic heat transfer rate
-                            fuelToManifoldSurfaceArea++;
-                        } else {
-                            // normal block
-                            fuelToCasingRFKT += properties.heatConductivity();
-                        }
-                    }
-                }
+            if (simulationDescription.isManifoldAt(i, j, k)) {
+                return manifoldSignalingProperties;
             }
-        }
-        fuelToCasingRFKT *= configuration.fuelToStackRFKTMultiplier();
-        
-        double stackToCoolantSystemRFKT = 2 * (x * y + x * z + z * y);
-        
+            final var properties = simulationDescription.moderatorPropertiesAt(i, j, k);
+            return properties != null ? properties : simulationDescription.defaultModeratorProperties();
+        };
         
-        for (int i = 0; i < x; i++) {
-            for (int j = 0; j < y; j++) {
-                for (int k = 0; k < z; k++) {
-                    ReactorModeratorRegistry.IModeratorProperties properties = moderatorProperties[i][j][k];
-                    if (properties == manifoldSignalingProperties) {
-                        // its a manifold here, need to consider its surface area
-                        for (Vector3ic axisDirection : SimUtil.axisDirections) {
-                            int neighborX = i + axisDirection.x();
-                            int neighborY = j + axisDirection.y();
-                            int neighborZ = k + axisDirection.z();
-                            if (neighborX < 0 || neighborX >= this.x ||
-                                    neighborY < 0 || neighborY >= this.y ||
-                                    neighborZ < 0 || neighborZ >= this.z) {
-                                // OOB, so its a casing we are against here, this counts against us
-                                stackToCoolantSystemRFKT--;
-                                continue;
-                            }
-                            ReactorModeratorRegistry.IModeratorProperties neighborProperties = moderatorProperties[neighborX][neighborY][neighborZ];
-                            // should a fuel rod add to surface area? it does right now.
-                            if (neighborProperties != manifoldSignalingProperties) {
-                                stackToCoolantSystemRFKT++;
-                            }
-                        }
-                    }
-                }
-            }
-        }
-        stackToCoolantSystemRFKT *= configuration.stackToCoolantRFMKT();
+        fuelTank = new FuelTank(configuration.fuelRodFuelCapacity() * controlRods.length * y);
         
-        if (configuration.passivelyCooled()) {
-            stackToCoolantSystemRFKT *= configuration.passiveCoolingTransferEfficiency();
+        manifoldProperties = manifoldSignalingProperties;
+        tables = SimulationTables.get(controlRods, x, y, z, moderators, manifoldSignalingProperties, configuration);
+        slotModerators = new ReactorModeratorRegistry.IModeratorProperties[tables.slotCount()];
+        for (int i = 0; i < slotModerators.length; i++) {
+            slotModerators[i] = tables.slotModerator(i, moderators);
         }
         
         this.casingToAmbientRFKT = 2 * ((x + 2) * (y + 2) + (x + 2) * (z + 2) + (z + 2) * (y + 2)) * configuration.stackToAmbientRFMKT();
-        this.fuelToCasingRFKT = fuelToCasingRFKT;
-        this.fuelToManifoldSurfaceArea = fuelToManifoldSurfaceArea;
-        this.stackToCoolantSystemRFKT = stackToCoolantSystemRFKT;
+        this.fuelToCasingRFKT = tables.fuelToCasingRFKT;
+        this.fuelToManifoldSurfaceArea = tables.fuelToManifoldSurfaceArea;
+        this.stackToCoolantSystemRFKT = tables.stackToCoolantSystemRFKT;
         
         fuelHeat.setRfPerKelvin(controlRods.length * y * configuration.rodRFM3K());
         stackHeat.setRfPerKelvin(x * y * z * configuration.stackRFM3K());
@@ -182,40 +163,404 @@ public abstract class BaseReactorSimulation implements IReactorSimulation {
     
     @Override
     public final void tick(boolean active) {
+        fidelityLevel = SimulationGovernor.level(irradiationCostNanos());
         double toBurn = 0;
         if (wasActiveLastTick || (!isAsync() && active)) {
-            toBurn = radiate();
+            if (isAsync() ? reuseIrradiationNextTick : canReuseIrradiation()) {
+                toBurn = reuseIrradiation();
+            } else {
+                if (!isAsync()) {
+                    recordIrradiationInputs();
+                }
+                irradiationPending = false;
+                final long start = System.nanoTime();
+                toBurn = radiate();
+                radiateNanos += (System.nanoTime() - start - radiateNanos) * 0.1;
+                steadyStateFuelUsage = toBurn;
+            }
         } else {
             fuelTank.burn(0);
         }
         
-        {
-            // decay fertility, RadiationHelper.tick in old BR, this is copied, mostly
-            double denominator = configuration.fuelFertilityDecayDenominator();
-            if (!active) {
-                // Much slower decay when off
-                denominator *= configuration.fuelFertilityDecayDenominatorInactiveMultiplier();
+        decayFertility(active);
+        transferHeat();
+        
+        if(active && isAsync()){
+            // the decision has to be made now, nothing is sent off thread when the last result will be reused
+            reuseIrradiationNextTick = canReuseIrradiation();
+            if (!reuseIrradiationNextTick) {
+                recordIrradiationInputs();
+                startNextRadiate();
+                irradiationPending = true;
             }
-            
-            // Fertility decay, at least 0.1 rad/t, otherwise halve it every 10 ticks
-            fuelFertility = Math.max(0f, fuelFertility - Math.max(configuration.fuelFertilityMinimumDecay(), fuelFertility / denominator));
+            wasActiveLastTick = true;
+        } else {
+            reuseIrradiationNextTick = false;
+        }
+        fuelTank.burn(toBurn);
+    }
+    
+    private void decayFertility(boolean active) {
+        // decay fertility, RadiationHelper.tick in old BR, this is copied, mostly
+        double denominator = configuration.fuelFertilityDecayDenominator();
+        if (!active) {
+            // Much slower decay when off
+            denominator *= configuration.fuelFertilityDecayDenominatorInactiveMultiplier();
         }
         
-        fuelHeat.transferWith(stackHeat, fuelToCasingRFKT + fuelToManifoldSurfaceArea * (coolantTank == null ? defaultModeratorProperties : coolantTank).heatConductivity());
+        // Fertility decay, at least 0.1 rad/t, otherwise halve it every 10 ticks
+        fuelFertility = Math.max(0f, fuelFertility - Math.max(configuration.fuelFertilityMinimumDecay(), fuelFertility / denominator));
+    }
+    
+    private double fuelToStackRFKT() {
+        return fuelToCasingRFKT + fuelToManifoldSurfaceArea * (coolantTank == null ? defaultModeratorProperties : coolantTank).heatConductivity();
+    }
+    
+    private void transferHeat() {
+        fuelHeat.transferWith(stackHeat, fuelToStackRFKT());
         output.transferWith(stackHeat, stackToCoolantSystemRFKT);
         stackHeat.transferWith(ambientHeat, casingToAmbientRFKT);
-        
-        if(active && isAsync()){
+    }
+    
+    /**
+     * Irradiates once per {@link Config.Reactor.ModeSpecific#FastForwardIrradiationInterval} ticks, and replays that result for the rest of the interval
+     * Fertility and fuel are stepped tick by tick, as they're cheap, passively cooled reactors integrate heat for the whole interval at once
+     */
+    @Override
+    public final void tickMany(int ticks, boolean active) {
+        final int interval = Math.max(1, Config.CONFIG.Reactor.ModeSpecific.FastForwardIrradiationInterval);
+        while (ticks > 0) {
+            final int chunk = Math.min(ticks, interval);
+            fastForward(chunk, active);
+            ticks -= chunk;
+        }
+        reuseIrradiationNextTick = false;
+        if (active && isAsync()) {
+            // leave things as a normal tick would, with the next irradiation already underway
+            recordIrradiationInputs();
             startNextRadiate();
+            irradiationPending = true;
             wasActiveLastTick = true;
         }
-        fuelTank.burn(toBurn);
+    }
+    
+    private void fastForward(int ticks, boolean active) {
+        boolean irradiated = false;
+        double fuelUsage = 0;
+        if (irradiationPending) {
+            // started by the tick before, a normal tick would use it regardless of activity
+            irradiationPending = false;
+            fuelUsage = radiate();
+            irradiated = true;
+        } else if (active) {
+            recordIrradiationInputs();
+            if (isAsync()) {
+                startNextRadiate();
+            }
+            fuelUsage = radiate();
+            irradiated = true;
+        }
+        if (irradiated) {
+            steadyStateFuelUsage = fuelUsage;
+            skippedIrradiations += ticks - 1;
+        }
+        
+        // the first tick already had its irradiation absorbed by radiate, the rest replay it
+        final double fuelRFAdded = irradiated && !Double.isNaN(steadyStateFuelRFAdded) ? steadyStateFuelRFAdded : 0;
+        final double caseRFAdded = irradiated && !Double.isNaN(steadyStateCaseRFAdded) ? steadyStateCaseRFAdded : 0;
+        
+        // neither depend on temperature, so they can be stepped on their own
+        for (int i = 0; i < ticks; i++) {
+            double toBurn = fuelUsage;
+            if (i != 0) {
+                toBurn = 0;
+                if (irradiated) {
+                    absorbFuelRad(steadyStateFuelRadAdded);
+                    toBurn = steadyStateFuelUsage * steadyStateFertility / fertility();
+                }
+            }
+            decayFertility(active);
+            fuelTank.burn(toBurn);
+        }
+        
+        if (battery != null) {
+            integrateHeat(ticks, fuelRFAdded, caseRFAdded);
+        } else {
+            // boiling is limited by the coolant available, which isn't linear in temperature, so this has to go tick by tick
+            for (int i = 0; i < ticks; i++) {
+                if (i != 0) {
+                    fuelHeat.absorbRF(fuelRFAdded);
+                    stackHeat.absorbRF(caseRFAdded);
+                }
+                transferHeat();
+            }
+        }
+    }
+    
+    /**
+     * With a battery every transfer is linear in the fuel and stack temperatures, so a tick is an affine map of them
+     * That map is measured around the current temperatures, and raised to the power of the tick count
+     */
+    private void integrateHeat(int ticks, double fuelRFAdded, double caseRFAdded) {
+        assert battery != null;
+        fastForwardFuelHeat.setRfPerKelvin(fuelHeat.rfPerKelvin());
+        fastForwardStackHeat.setRfPerKelvin(stackHeat.rfPerKelvin());
+        
+        // [fuel temperature, stack temperature, RF into the battery]
+        final double[] state = {fuelHeat.temperature(), stackHeat.temperature(), 0};
+        fastForwardHeatStep(state, 0, 0);
+        double lastTickRF = state[2];
+        if (ticks > 1) {
+            if (ticks > 2) {
+                final double fuelTemperature = state[0];
+                final double stackTemperature = state[1];
+                final double[] base = {fuelTemperature, stackTemperature, 0};
+                final double[] fuelOffset = {fuelTemperature + 1, stackTemperature, 0};
+                final double[] stackOffset = {fuelTemperature, stackTemperature + 1, 0};
+                fastForwardHeatStep(base, fuelRFAdded, caseRFAdded);
+                fastForwardHeatStep(fuelOffset, fuelRFAdded, caseRFAdded);
+                fastForwardHeatStep(stackOffset, fuelRFAdded, caseRFAdded);
+                
+                // row major 4x4, over [fuel temperature, stack temperature, battery RF, 1]
+                final double[] tickMap = new double[16];
+                for (int i = 0; i < 3; i++) {
+                    tickMap[i * 4] = fuelOffset[i] - base[i];
+                    tickMap[i * 4 + 1] = stackOffset[i] - base[i];
+                    tickMap[i * 4 + 3] = base[i] - tickMap[i * 4] * fuelTemperature - tickMap[i * 4 + 1] * stackTemperature;
+                }
+                tickMap[2 * 4 + 2] = 1;
+                tickMap[3 * 4 + 3] = 1;
+                
+                final double[] map = power(tickMap, ticks - 2);
+                final double[] next = new double[3];
+                for (int i = 0; i < 3; i++) {
+                    next[i] = map[i * 4] * state[0] + map[i * 4 + 1] * state[1] + map[i * 4 + 2] * state[2] + map[i * 4 + 3];
+                }
+                System.arraycopy(next, 0, state, 0, 3);
+            }
+            // the last tick is stepped on its own, so it can be reported as the last tick's generation
+            final double beforeLastTick = state[2];
+            fastForwardHeatStep(state, fuelRFAdded, caseRFAdded);
+            lastTickRF = state[2] - beforeLastTick;
+        }
+        fuelHeat.setTemperature(state[0]);
+        stackHeat.setTemperature(state[1]);
+        battery.addGenerated(state[2], lastTickRF);
+    }
+    
+    private void fastForwardHeatStep(double[] state, double fuelRFAdded, double caseRFAdded) {
+        assert battery != null;
+        fastForwardFuelHeat.setTemperature(state[0]);
+        fastForwardStackHeat.setTemperature(state[1]);
+        fastForwardFuelHeat.absorbRF(fuelRFAdded);
+        fastForwardStackHeat.absorbRF(caseRFAdded);
+        fastForwardFuelHeat.transferWith(fastForwardStackHeat, fuelToStackRFKT());
+        final double cooledStackTemperature = battery.transferredTemperature(fastForwardStackHeat, stackToCoolantSystemRFKT);
+        state[2] += (fastForwardStackHeat.temperature() - cooledStackTemperature) * fastForwardStackHeat.rfPerKelvin();
+        fastForwardStackHeat.setTemperature(cooledStackTemperature);
+        fastForwardStackHeat.transferWith(ambientHeat, casingToAmbientRFKT);
+        state[0] = fastForwardFuelHeat.temperature();
+        state[1] = fastForwardStackHeat.temperature();
+    }
+    
+    private static double[] power(double[] matrix, int exponent) {
+        double[] result = new double[16];
+        for (int i = 0; i < 4; i++) {
+            result[i * 4 + i] = 1;
+        }
+        double[] square = matrix;
+        while (exponent > 0) {
+            if ((exponent & 1) != 0) {
+                result = multiply(result, square);
+            }
+            exponent >>= 1;
+            if (exponent > 0) {
+                square = multiply(square, square);
+            }
+        }
+        return result;
+    }
+    
+    private static double[] multiply(double[] a, double[] b) {
+        final double[] result = new double[16];
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 4; j++) {
+                double sum = 0;
+                for (int k = 0; k < 4; k++) {
+                    sum += a[i * 4 + k] * b[k * 4 + j];
+                }
+                result[i * 4 + j] = sum;
+            }
+        }
+        return result;
     }
     
     protected abstract double radiate();
     
-    protected void startNextRadiate() {
+    /**
+     * Applies the result of an irradiation to the fuel and stack, fuelRadAdded is before scaling by fuel amount
+     * Subclasses should route their results through here, so steady state ticks can replay them
+     */
+    protected void absorbIrradiation(double fuelRFAdded, double fuelRadAdded, double caseRFAdded) {
+        steadyStateFuelRFAdded = fuelRFAdded;
+        steadyStateFuelRadAdded = fuelRadAdded;
+        steadyStateCaseRFAdded = caseRFAdded;
+        
+        absorbFuelRad(fuelRadAdded);
+        if (!Double.isNaN(fuelRFAdded)) {
+            fuelHeat.absorbRF(fuelRFAdded);
+        }
+        if (!Double.isNaN(caseRFAdded)) {
+            stackHeat.absorbRF(caseRFAdded);
+        }
+    }
+    
+    private void absorbFuelRad(double fuelRadAdded) {
+        if (!Double.isNaN(fuelRadAdded)) {
+            if (configuration.fuelRadScalingMultiplier() != 0) {
+                fuelRadAdded *= configuration.fuelRadScalingMultiplier() * (configuration.fuelRodFuelCapacity() / Math.max(1.0, (double) fuelTank().totalStored()));
+            }
+            fuelFertility += fuelRadAdded;
+        }
+    }
+    
+    /**
+     * What the simulation sees in this block, null for control rods
+     */
+    @Nullable
+    protected final ReactorModeratorRegistry.IModeratorProperties moderatorAt(int x, int y, int z) {
+        final int linearIndex = (((x * this.z) + z) * this.y) + y;
+        if (!replacedModerators.isEmpty()) {
+            final var replaced = replacedModerators.get(linearIndex);
+            if (replaced != null) {
+                return replaced;
+            }
+        }
+        return slotModerators[tables.slotAt(linearIndex)];
+    }
+    
+    /**
+     * Only moderator to moderator, control rods and manifolds are parts of the multiblock, changing those is a rebuild
+     */
+    @Override
+    public final boolean setModeratorProperties(int x, int y, int z, @Nullable ReactorModeratorRegistry.IModeratorProperties properties) {
+        if (x < 0 || x >= this.x || y < 0 || y >= this.y || z < 0 || z >= this.z) {
+            return false;
+        }
+        if (properties == null) {
+            properties = defaultModeratorProperties;
+        }
+        final var current = moderatorAt(x, y, z);
+        if (current == null || current == manifoldProperties) {
+            return false;
+        }
+        if (current == properties) {
+            return true;
+        }
+        if (!replaceModerator(x, y, z, properties)) {
+            return false;
+        }
+        replacedModerators.put((((x * this.z) + z) * this.y) + y, properties);
+        // conductivity only matters next to a fuel rod
+        for (Vector2ic direction : SimUtil.cardinalDirections) {
+            final int neighborX = x + direction.x();
+            final int neighborZ = z + direction.y();
+            if (neighborX >= 0 && neighborX < this.x && neighborZ >= 0 && neighborZ < this.z && controlRodsXZ[neighborX][neighborZ] != null) {
+                fuelToCasingRFKT += (properties.heatConductivity() - current.heatConductivity()) * configuration.fuelToStackRFKTMultiplier();
+            }
+        }
+        // the last result was for the old layout
+        steadyStateRecorded = false;
+        return true;
+    }
+    
+    /**
+     * For subclasses that keep their own view of the moderators, moderatorAt returns the new one after this returns true
+     *
+     * @return false if it can't be done in place
+     */
+    protected boolean replaceModerator(int x, int y, int z, ReactorModeratorRegistry.IModeratorProperties properties) {
+        return false;
+    }
+    
+    /**
+     * If replaying the last irradiation result is a valid stand-in for a new one
+     */
+    protected boolean allowSteadyStateReuse() {
+        return true;
+    }
     
+    private void recordIrradiationInputs() {
+        steadyStateRecorded = true;
+        ticksSinceIrradiation = 0;
+        fullIrradiations++;
+        steadyStateFuelHeat = fuelHeat.temperature();
+        for (int i = 0; i < controlRods.length; i++) {
+            steadyStateInsertions[i] = controlRods[i].insertion;
+        }
+        steadyStateFuel = fuelTank.fuel();
+        steadyStateWaste = fuelTank.waste();
+        steadyStateCoolant = coolantTank == null ? 0 : coolantTank.liquidAmount();
+        steadyStateFertility = fertility();
+        // if the irradiation doesn't happen (no fuel), nothing is added
+        steadyStateFuelRFAdded = 0;
+        steadyStateFuelRadAdded = 0;
+        steadyStateCaseRFAdded = 0;
+    }
+    
+    /**
+     * What an irradiation costs, in ns, for prioritizing which reactors lose fidelity first
+     * Defaults to the time spent in radiate, async simulations should report the time their work takes off thread
+     */
+    protected double irradiationCostNanos() {
+        return radiateNanos;
+    }
+    
+    @Override
+    public int fidelityLevel() {
+        return fidelityLevel;
+    }
+    
+    private boolean canReuseIrradiation() {
+        if (!steadyStateRecorded || !allowSteadyStateReuse()) {
+            return false;
+        }
+        for (int i = 0; i < controlRods.length; i++) {
+            if (steadyStateInsertions[i] != controlRods[i].insertion) {
+                return false;
+            }
+        }
+        if (ticksSinceIrradiation + 1 < (1 << fidelityLevel)) {
+            // the server is behind, drift is accepted until the reduced interval is up
+            return true;
+        }
+        if (steadyStateRefreshInterval <= 0 || ticksSinceIrradiation + 1 >= steadyStateRefreshInterval) {
+            return false;
+        }
+        if (Math.abs(fuelHeat.temperature() - steadyStateFuelHeat) > steadyStateHeatTolerance) {
+            return false;
+        }
+        // waste starts at zero, so its drift is relative to all the reactant rather than itself
+        final double reactantDrift = steadyStateFuelTolerance * fuelTank.totalStored();
+        if (Math.abs(fuelTank.fuel() - steadyStateFuel) > reactantDrift || Math.abs(fuelTank.waste() - steadyStateWaste) > reactantDrift) {
+            return false;
+        }
+        if (coolantTank != null && Math.abs(coolantTank.liquidAmount() - steadyStateCoolant) > steadyStateCoolantTolerance * Math.max(coolantTank.liquidAmount(), steadyStateCoolant)) {
+            return false;
+        }
+        return true;
+    }
+    
+    private double reuseIrradiation() {
+        ticksSinceIrradiation++;
+        skippedIrradiations++;
+        absorbIrradiation(steadyStateFuelRFAdded, steadyStateFuelRadAdded, steadyStateCaseRFAdded);
+        // fuel usage is inversely proportional to fertility, which is always moving
+        return steadyStateFuelUsage * steadyStateFertility / fertility();
+    }
+    
+    protected void startNextRadiate() {
+        
     }
     
     @Override
@@ -319,6 +664,11 @@ public abstract class BaseReactorSimulation implements IReactorSimulation {
         simInfo.add("Fertility: " + fertility());
         simInfo.add("FuelHeat: " + fuelHeat());
         simInfo.add("ReactorHeat: " + stackHeat());
+        simInfo.add("SteadyStateSkippedTicks: " + skippedIrradiations);
+        simInfo.add("SteadyStateFullTicks: " + fullIrradiations);
+        simInfo.add("FidelityLevel: " + fidelityLevel + " (irradiating every " + (1 << fidelityLevel) + " ticks)");
+        simInfo.add("IrradiationCost: " + irradiationCostNanos() / 1_000_000.0 + "ms");
+        simInfo.add(SimulationGovernor.debugInfo());
         if (battery != null) {
             final var batteryInfo = new DebugInfo("Battery");
             batteryInfo.add("StoredPower: " + battery.stored());
@@ -27,9 +27,7 @@ public class Battery extends HeatBody implements IReactorSimulation.IBattery, IP
     
     @Override
     public double transferWith(HeatBody other, double rfkt) {
-        double newTemp = other.temperature() - temperature();
-        newTemp *= Math.exp(-rfkt / other.rfPerKelvin());
-        newTemp += temperature();
+        final double newTemp = transferredTemperature(other, rfkt);
         
         double rfTransferred = (newTemp - other.temperature()) * other.rfPerKelvin();
         
@@ -44,6 +42,28 @@ public class Battery extends HeatBody implements IReactorSimulation.IBattery, IP
         return rfTransferred;
     }
     
+    /**
+     * Temperature {@link #transferWith} would leave the other body at, without transferring anything
+     */
+    public double transferredTemperature(HeatBody other, double rfkt) {
+        double newTemp = other.temperature() - temperature();
+        newTemp *= Math.exp(-rfkt / other.rfPerKelvin());
+        newTemp += temperature();
+        return newTemp;
+    }
+    
+    /**
+     * Stores RF transferred in over many ticks at once, lastTickRF is reported as what was generated last tick
+     */
+    public void addGenerated(double rf, double lastTickRF) {
+        final double outputMultiplier = configuration.outputMultiplier() * configuration.passiveOutputMultiplier();
+        stored += (long) (rf * outputMultiplier);
+        if (stored > capacity) {
+            stored = capacity;
+        }
+        generatedLastTick = (long) (lastTickRF * outputMultiplier);
+    }
+    
     @Override
     public long extract(long toExtract) {
         stored -= toExtract;
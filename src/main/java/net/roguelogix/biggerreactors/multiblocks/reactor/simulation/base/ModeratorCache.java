@@ -13,6 +13,10 @@ public class ModeratorCache {
         this.rootModerator = rootModerator;
     }
     
+    public boolean isFor(ReactorModeratorRegistry.IModeratorProperties moderator) {
+        return rootModerator == moderator;
+    }
+    
     public void update() {
         absorption = rootModerator.absorption();
         moderation = rootModerator.moderation() - 1.0;
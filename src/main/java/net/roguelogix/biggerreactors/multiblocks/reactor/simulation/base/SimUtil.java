@@ -59,6 +59,9 @@ public class SimUtil {
     
     public static final ArrayList<ArrayList<RayStep>> rays = new ArrayList<>();
     
+    // the vector API is an incubator module, it has to be explicitly added to the boot layer for the vectorized simulation to load
+    public static final boolean vectorAPIAvailable = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    
     @OnModLoad
     private static void onModLoad() {
         // trigger classload on mod load, so this doesnt happen at runtime
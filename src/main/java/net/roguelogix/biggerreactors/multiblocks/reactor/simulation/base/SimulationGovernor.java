@@ -0,0 +1,81 @@
+package net.roguelogix.biggerreactors.multiblocks.reactor.simulation.base;
+
+import net.roguelogix.biggerreactors.Config;
+import net.roguelogix.phosphophyllite.debug.DebugInfo;
+
+/**
+ * Watches the server tick time, and while it's over budget has reactors reuse their last irradiation result for more ticks, most expensive reactors first
+ * Pressure moves one step at a time, up once the tick time has been over budget for a while, down once it's been comfortably under it for longer
+ */
+public class SimulationGovernor {
+    
+    // a reactor irradiates once every 2^level ticks
+    public static final int MAX_LEVEL = 4;
+    // each factor a reactor is cheaper than the most expensive priority band spares it one more level of pressure
+    private static final double PRIORITY_STEP = 8;
+    private static final int MAX_PRIORITY_OFFSET = 2;
+    private static final double TICK_SMOOTHING = 0.1;
+    
+    private static volatile int pressure = 0;
+    private static volatile double averageTickNanos = 0;
+    private static int ticksOverBudget = 0;
+    private static int ticksUnderBudget = 0;
+    
+    /**
+     * Call once per server tick with how long it took
+     */
+    public static void recordServerTick(long tickNanos) {
+        final var config = Config.CONFIG.Reactor.ModeSpecific;
+        averageTickNanos += (tickNanos - averageTickNanos) * TICK_SMOOTHING;
+        if (config.GovernorTickBudget <= 0) {
+            pressure = 0;
+            return;
+        }
+        final double budgetNanos = config.GovernorTickBudget * 1_000_000;
+        if (averageTickNanos > budgetNanos) {
+            ticksUnderBudget = 0;
+            if (++ticksOverBudget >= config.GovernorReactionTicks && pressure < MAX_LEVEL + MAX_PRIORITY_OFFSET) {
+                pressure++;
+                ticksOverBudget = 0;
+            }
+        } else if (averageTickNanos < budgetNanos * config.GovernorRecoveryFraction) {
+            ticksOverBudget = 0;
+            if (++ticksUnderBudget >= config.GovernorRecoveryTicks && pressure > 0) {
+                pressure--;
+                ticksUnderBudget = 0;
+            }
+        } else {
+            // between the two, hold where it is
+            ticksOverBudget = 0;
+            ticksUnderBudget = 0;
+        }
+    }
+    
+    /**
+     * Fidelity level for a reactor whose irradiation costs this much (ns), 0 is full fidelity
+     */
+    public static int level(double irradiationNanos) {
+        final int pressure = SimulationGovernor.pressure;
+        if (pressure == 0) {
+            return 0;
+        }
+        double threshold = Config.CONFIG.Reactor.ModeSpecific.GovernorTickBudget * 1_000_000 / PRIORITY_STEP;
+        int offset = 0;
+        while (offset < MAX_PRIORITY_OFFSET && irradiationNanos < threshold) {
+            offset++;
+            threshold /= PRIORITY_STEP;
+        }
+        return Math.max(0, Math.min(MAX_LEVEL, pressure - offset));
+    }
+    
+    public static int pressure() {
+        return pressure;
+    }
+    
+    public static DebugInfo debugInfo() {
+        final var info = new DebugInfo("SimulationGovernor");
+        info.add("Pressure: " + pressure + "/" + (MAX_LEVEL + MAX_PRIORITY_OFFSET));
+        info.add("AverageTickTime: " + averageTickNanos / 1_000_000.0 + "ms");
+        return info;
+    }
+}
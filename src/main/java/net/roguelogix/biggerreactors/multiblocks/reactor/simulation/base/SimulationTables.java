@@ -0,0 +1,366 @@
+package net.roguelogix.biggerreactors.multiblocks.reactor.simulation.base;
+
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.SimulationConfiguration;
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.cpu.ControlRodClasses;
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.cpu.RayTable;
+import net.roguelogix.biggerreactors.registries.ReactorModeratorRegistry;
+import org.joml.Vector2ic;
+import org.joml.Vector3ic;
+
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * What a simulation derives from its layout, moderators and configuration that doesn't change while it runs
+ * Looked up by a digest of their content, so reassembling a reactor, or building another one just like it, reuses these instead of deriving them again
+ * Moderators are identified by the slot of their first appearance rather than by instance, each simulation maps slots back to its own instances with {@link #slotModerator}
+ */
+public class SimulationTables {
+    
+    // 128 bits of an MD5 of the content, the content itself runs to megabytes for the largest reactors
+    private record Key(long high, long low) {
+        static Key of(byte[] digest) {
+            final var buffer = ByteBuffer.wrap(digest);
+            return new Key(buffer.getLong(), buffer.getLong());
+        }
+    }
+    
+    // soft, so tables of reactors that are gone are dropped once memory is needed
+    private static final ConcurrentHashMap<Key, SoftReference<SimulationTables>> cache = new ConcurrentHashMap<>();
+    
+    public static final int CONTROL_ROD_SLOT = 0;
+    // full pass simulations index their moderators with a byte
+    public static final int MAX_INDEXED_SLOTS = 127;
+    // the widest vector there is, 2048 bits of floats, a masked gather still loads its whole index vector
+    public static final int GATHER_PADDING = 64;
+    
+    /**
+     * What a simulation sees in each block, null for control rods
+     */
+    @FunctionalInterface
+    public interface Moderators {
+        @Nullable
+        ReactorModeratorRegistry.IModeratorProperties at(int x, int y, int z);
+    }
+    
+    public final int x, y, z;
+    // moderator slot of each block, at ((x * z) + z) * y + y, null if there are more slots than fit in a byte, see slotAt
+    @Nullable
+    public final byte[] moderatorIndices;
+    // in place of moderatorIndices when there are more slots than fit in a byte
+    @Nullable
+    private final short[] wideModeratorIndices;
+    // linear index of the first block of each slot, -1 for control rods
+    private final int[] slotFirstBlocks;
+    // slots rays pass through unchanged, no absorption and a moderation of 1, manifolds never are as their coolant can change
+    public final boolean[] transparentSlots;
+    // configuration and slot properties these were derived from, a hit on the digest is checked against them and the indices
+    private final double[] keyProperties;
+    
+    public final double fuelToCasingRFKT;
+    public final int fuelToManifoldSurfaceArea;
+    public final double stackToCoolantSystemRFKT;
+    
+    @Nullable
+    private RayTable rayTable;
+    @Nullable
+    private ControlRodClasses controlRodClasses;
+    @Nullable
+    private int[] gatherModeratorIndices;
+    
+    private SimulationTables(int x, int y, int z, @Nullable byte[] moderatorIndices, @Nullable short[] wideModeratorIndices, int[] slotFirstBlocks, boolean[] transparentSlots, double[] keyProperties, double fuelToCasingRFKT, int fuelToManifoldSurfaceArea, double stackToCoolantSystemRFKT) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.moderatorIndices = moderatorIndices;
+        this.wideModeratorIndices = wideModeratorIndices;
+        this.slotFirstBlocks = slotFirstBlocks;
+        this.transparentSlots = transparentSlots;
+        this.keyProperties = keyProperties;
+        this.fuelToCasingRFKT = fuelToCasingRFKT;
+        this.fuelToManifoldSurfaceArea = fuelToManifoldSurfaceArea;
+        this.stackToCoolantSystemRFKT = stackToCoolantSystemRFKT;
+    }
+    
+    /**
+     * @param manifoldProperties the instance marking manifolds in moderators
+     */
+    public static SimulationTables get(SimUtil.ControlRod[] controlRods, int x, int y, int z, Moderators moderators, ReactorModeratorRegistry.IModeratorProperties manifoldProperties, SimulationConfiguration configuration) {
+        final var slots = new Reference2IntOpenHashMap<ReactorModeratorRegistry.IModeratorProperties>();
+        slots.defaultReturnValue(-1);
+        final var slotModerators = new ArrayList<ReactorModeratorRegistry.IModeratorProperties>();
+        final var slotFirstBlocks = new IntArrayList();
+        slotModerators.add(null);
+        slotFirstBlocks.add(-1);
+        byte[] moderatorIndices = new byte[x * y * z];
+        short[] wideModeratorIndices = null;
+        
+        final MessageDigest digest;
+        try {
+            // every JVM has MD5, not used for anything but telling layouts apart
+            digest = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        final var keyProperties = new DoubleArrayList();
+        keyProperties.add(configuration.passivelyCooled() ? 1 : 0);
+        keyProperties.add(configuration.casingHeatTransferRFMKT());
+        keyProperties.add(configuration.fuelToStackRFKTMultiplier());
+        keyProperties.add(configuration.stackToCoolantRFMKT());
+        keyProperties.add(configuration.passiveCoolingTransferEfficiency());
+        final var output = new DataOutputStream(new BufferedOutputStream(new DigestOutputStream(OutputStream.nullOutputStream(), digest)));
+        try {
+            output.writeInt(x);
+            output.writeInt(y);
+            output.writeInt(z);
+            output.writeBoolean(configuration.passivelyCooled());
+            output.writeDouble(configuration.casingHeatTransferRFMKT());
+            output.writeDouble(configuration.fuelToStackRFKTMultiplier());
+            output.writeDouble(configuration.stackToCoolantRFMKT());
+            output.writeDouble(configuration.passiveCoolingTransferEfficiency());
+            
+            // runs of slots up each column, most columns are a single run
+            int runSlot = -1;
+            int runLength = 0;
+            // neighbours up a column are usually the same, skips the map lookup
+            ReactorModeratorRegistry.IModeratorProperties lastProperties = null;
+            int lastSlot = CONTROL_ROD_SLOT;
+            for (int i = 0; i < x; i++) {
+                for (int j = 0; j < z; j++) {
+                    for (int k = 0; k < y; k++) {
+                        final var properties = moderators.at(i, k, j);
+                        final int linearIndex = (((i * z) + j) * y) + k;
+                        int slot = CONTROL_ROD_SLOT;
+                        if (properties == lastProperties) {
+                            slot = lastSlot;
+                        } else if (properties != null) {
+                            slot = slots.getInt(properties);
+                            if (slot == -1) {
+                                slot = slotModerators.size();
+                                slots.put(properties, slot);
+                                slotModerators.add(properties);
+                                slotFirstBlocks.add(linearIndex);
+                                if (slot >= MAX_INDEXED_SLOTS && moderatorIndices != null) {
+                                    wideModeratorIndices = new short[moderatorIndices.length];
+                                    for (int l = 0; l < linearIndex; l++) {
+                                        wideModeratorIndices[l] = moderatorIndices[l];
+                                    }
+                                    moderatorIndices = null;
+                                }
+                                if (slot > Short.MAX_VALUE) {
+                                    throw new IllegalArgumentException("Too many moderator types");
+                                }
+                            }
+                        }
+                        lastProperties = properties;
+                        lastSlot = slot;
+                        if (moderatorIndices != null) {
+                            moderatorIndices[linearIndex] = (byte) slot;
+                        } else {
+                            wideModeratorIndices[linearIndex] = (short) slot;
+                        }
+                        if (slot != runSlot) {
+                            if (runLength != 0) {
+                                output.writeInt(runSlot);
+                                output.writeInt(runLength);
+                            }
+                            runSlot = slot;
+                            runLength = 0;
+                        }
+                        runLength++;
+                    }
+                }
+            }
+            output.writeInt(runSlot);
+            output.writeInt(runLength);
+            
+            // manifolds stand in for the coolant, their own properties don't matter here
+            for (int i = 1; i < slotModerators.size(); i++) {
+                final var properties = slotModerators.get(i);
+                final boolean manifold = properties == manifoldProperties;
+                output.writeBoolean(manifold);
+                if (!manifold) {
+                    output.writeDouble(properties.absorption());
+                    output.writeDouble(properties.heatEfficiency());
+                    output.writeDouble(properties.moderation());
+                    output.writeDouble(properties.heatConductivity());
+                    keyProperties.add(properties.absorption());
+                    keyProperties.add(properties.heatEfficiency());
+                    keyProperties.add(properties.moderation());
+                    keyProperties.add(properties.heatConductivity());
+                } else {
+                    keyProperties.add(Double.NaN);
+                }
+            }
+            output.flush();
+        } catch (IOException e) {
+            // only writing to the digest
+            throw new UncheckedIOException(e);
+        }
+        
+        final var key = Key.of(digest.digest());
+        final double[] keyPropertiesArray = keyProperties.toDoubleArray();
+        final var cachedReference = cache.get(key);
+        if (cachedReference != null) {
+            final var cached = cachedReference.get();
+            // the odd collision is derived again and replaces what was there
+            if (cached != null && cached.x == x && cached.y == y && cached.z == z && Arrays.equals(cached.moderatorIndices, moderatorIndices) && Arrays.equals(cached.wideModeratorIndices, wideModeratorIndices) && Arrays.equals(cached.keyProperties, keyPropertiesArray)) {
+                return cached;
+            }
+        }
+        
+        final boolean[] transparentSlots = new boolean[slotModerators.size()];
+        for (int i = 1; i < slotModerators.size(); i++) {
+            final var properties = slotModerators.get(i);
+            // rays soften by 1 / ((moderation - 1) * length + 1) like ModeratorCache has it, so a moderation of exactly 1 leaves the hardness bit for bit as it was
+            transparentSlots[i] = properties != manifoldProperties && properties.absorption() == 0 && properties.moderation() - 1.0 == 0;
+        }
+        
+        final var tables = derive(controlRods, x, y, z, moderators, manifoldProperties, configuration, moderatorIndices, wideModeratorIndices, slotFirstBlocks.toIntArray(), transparentSlots, keyPropertiesArray);
+        cache.values().removeIf(reference -> reference.get() == null);
+        cache.put(key, new SoftReference<>(tables));
+        return tables;
+    }
+    
+    private static SimulationTables derive(SimUtil.ControlRod[] controlRods, int x, int y, int z, Moderators moderators, ReactorModeratorRegistry.IModeratorProperties manifoldProperties, SimulationConfiguration configuration, @Nullable byte[] moderatorIndices, @Nullable short[] wideModeratorIndices, int[] slotFirstBlocks, boolean[] transparentSlots, double[] keyProperties) {
+        double fuelToCasingRFKT = 0;
+        int fuelToManifoldSurfaceArea = 0;
+        for (SimUtil.ControlRod controlRod : controlRods) {
+            for (int i = 0; i < y; i++) {
+                for (Vector2ic direction : SimUtil.cardinalDirections) {
+                    if (controlRod.x + direction.x() < 0 || controlRod.x + direction.x() >= x || controlRod.z + direction.y() < 0 || controlRod.z + direction.y() >= z) {
+                        fuelToCasingRFKT += configuration.casingHeatTransferRFMKT();
+                        continue;
+                    }
+                    ReactorModeratorRegistry.IModeratorProperties properties = moderators.at(controlRod.x + direction.x(), i, controlRod.z + direction.y());
+                    if (properties != null) {
+                        if (properties == manifoldProperties) {
+                            // manifold, dynamic heat transfer rate
+                            fuelToManifoldSurfaceArea++;
+                        } else {
+                            // normal block
+                            fuelToCasingRFKT += properties.heatConductivity();
+                        }
+                    }
+                }
+            }
+        }
+        fuelToCasingRFKT *= configuration.fuelToStackRFKTMultiplier();
+        
+        double stackToCoolantSystemRFKT = 2 * (x * y + x * z + z * y);
+        
+        
+        for (int i = 0; i < x; i++) {
+            for (int j = 0; j < y; j++) {
+                for (int k = 0; k < z; k++) {
+                    ReactorModeratorRegistry.IModeratorProperties properties = moderators.at(i, j, k);
+                    if (properties == manifoldProperties) {
+                        // its a manifold here, need to consider its surface area
+                        for (Vector3ic axisDirection : SimUtil.axisDirections) {
+                            int neighborX = i + axisDirection.x();
+                            int neighborY = j + axisDirection.y();
+                            int neighborZ = k + axisDirection.z();
+                            if (neighborX < 0 || neighborX >= x ||
+                                    neighborY < 0 || neighborY >= y ||
+                                    neighborZ < 0 || neighborZ >= z) {
+                                // OOB, so its a casing we are against here, this counts against us
+                                stackToCoolantSystemRFKT--;
+                                continue;
+                            }
+                            ReactorModeratorRegistry.IModeratorProperties neighborProperties = moderators.at(neighborX, neighborY, neighborZ);
+                            // should a fuel rod add to surface area? it does right now.
+                            if (neighborProperties != manifoldProperties) {
+                                stackToCoolantSystemRFKT++;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        stackToCoolantSystemRFKT *= configuration.stackToCoolantRFMKT();
+        
+        if (configuration.passivelyCooled()) {
+            stackToCoolantSystemRFKT *= configuration.passiveCoolingTransferEfficiency();
+        }
+        
+        return new SimulationTables(x, y, z, moderatorIndices, wideModeratorIndices, slotFirstBlocks, transparentSlots, keyProperties, fuelToCasingRFKT, fuelToManifoldSurfaceArea, stackToCoolantSystemRFKT);
+    }
+    
+    public int slotCount() {
+        return slotFirstBlocks.length;
+    }
+    
+    public int slotAt(int linearIndex) {
+        if (moderatorIndices != null) {
+            return moderatorIndices[linearIndex];
+        }
+        assert wideModeratorIndices != null;
+        return wideModeratorIndices[linearIndex];
+    }
+    
+    /**
+     * The instance in this slot for a simulation using these tables, null for the control rod slot
+     */
+    @Nullable
+    public ReactorModeratorRegistry.IModeratorProperties slotModerator(int slot, Moderators moderators) {
+        final int linearIndex = slotFirstBlocks[slot];
+        if (linearIndex == -1) {
+            return null;
+        }
+        final int column = linearIndex / y;
+        return moderators.at(column / z, linearIndex % y, column % z);
+    }
+    
+    /**
+     * Built the first time it's asked for, time sliced simulations never need it
+     * Control rods must be in the order full pass simulations irradiate them in, which only depends on what these were derived from, every simulation sharing these gets the same table
+     */
+    public synchronized RayTable rayTable(SimUtil.ControlRod[] controlRods) {
+        if (rayTable == null) {
+            assert moderatorIndices != null;
+            rayTable = new RayTable(controlRods, x, y, z, moderatorIndices, transparentSlots);
+        }
+        return rayTable;
+    }
+    
+    /**
+     * The moderator indices as ints, for vectorized simulations to gather with, followed by {@link #GATHER_PADDING} indices of the control rod slot
+     * Built the first time it's asked for
+     */
+    public synchronized int[] gatherModeratorIndices() {
+        if (gatherModeratorIndices == null) {
+            assert moderatorIndices != null;
+            gatherModeratorIndices = new int[moderatorIndices.length + GATHER_PADDING];
+            for (int i = 0; i < moderatorIndices.length; i++) {
+                gatherModeratorIndices[i] = moderatorIndices[i];
+            }
+        }
+        return gatherModeratorIndices;
+    }
+    
+    /**
+     * Built the first time it's asked for, from the control rods in the same order every simulation sharing these puts them in first
+     */
+    public synchronized ControlRodClasses controlRodClasses(SimUtil.ControlRod[] controlRods) {
+        if (controlRodClasses == null) {
+            assert moderatorIndices != null;
+            controlRodClasses = new ControlRodClasses(controlRods, x, y, z, moderatorIndices);
+        }
+        return controlRodClasses;
+    }
+}
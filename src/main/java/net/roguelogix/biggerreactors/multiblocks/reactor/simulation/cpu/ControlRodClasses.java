@@ -0,0 +1,156 @@
+package net.roguelogix.biggerreactors.multiblocks.reactor.simulation.cpu;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.base.SimUtil;
+
+import java.util.Arrays;
+
+/**
+ * Control rods grouped by what their rays see, every rod in a class gets the same irradiation result while all control rods have the same insertion
+ * Rays are cut off at the walls, so two rods are only alike if every column their rays can reach is outside the reactor for both, or holds the same moderators all the way up
+ * The rays aren't mirror or rotation symmetric, only translated copies of a neighbourhood give the same result, so those are the only ones grouped
+ */
+public class ControlRodClasses {
+    
+    private record Column(byte[] moderatorIndices, int start, int length) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Column column && Arrays.equals(moderatorIndices, start, start + length, column.moderatorIndices, column.start, column.start + column.length);
+        }
+        
+        @Override
+        public int hashCode() {
+            int hash = 1;
+            for (int i = start; i < start + length; i++) {
+                hash = hash * 31 + moderatorIndices[i];
+            }
+            return hash;
+        }
+    }
+    
+    // rods are reordered to put the representative of each class first, followed by the rest, each in the order they were given in
+    private final int[] positions;
+    public final int representativeCount;
+    // indexed by reordered rod
+    private final int[] representatives;
+    private final int[] classSizes;
+    
+    public ControlRodClasses(SimUtil.ControlRod[] controlRods, int x, int y, int z, byte[] moderatorIndices) {
+        // every column offset a ray steps through
+        final var offsetSet = new IntOpenHashSet();
+        for (final var raySteps : SimUtil.rays) {
+            for (final var step : raySteps) {
+                offsetSet.add((step.offset.x << 16) | (step.offset.z & 0xFFFF));
+            }
+        }
+        final int[] offsets = offsetSet.toIntArray();
+        Arrays.sort(offsets);
+        final int[] offsetX = new int[offsets.length];
+        final int[] offsetZ = new int[offsets.length];
+        for (int i = 0; i < offsets.length; i++) {
+            offsetX[i] = offsets[i] >> 16;
+            offsetZ[i] = (short) offsets[i];
+        }
+        
+        // columns with the same moderators get the same id, control rods are all 0
+        final int[] columnIds = new int[x * z];
+        final var columns = new Object2IntOpenHashMap<Column>();
+        for (final var controlRod : controlRods) {
+            columnIds[controlRod.x * z + controlRod.z] = -1;
+        }
+        for (int i = 0; i < columnIds.length; i++) {
+            if (columnIds[i] == -1) {
+                columnIds[i] = 0;
+                continue;
+            }
+            final var column = new Column(moderatorIndices, i * y, y);
+            int id = columns.getInt(column);
+            if (id == 0) {
+                id = columns.size() + 1;
+                columns.put(column, id);
+            }
+            columnIds[i] = id;
+        }
+        
+        // the columns around each rod, -1 outside the reactor
+        final int[][] neighbourhoods = new int[controlRods.length][];
+        final int[] classOf = new int[controlRods.length];
+        final var classRepresentatives = new IntArrayList();
+        final var candidates = new Long2ObjectOpenHashMap<IntArrayList>();
+        for (int i = 0; i < controlRods.length; i++) {
+            final var controlRod = controlRods[i];
+            final int[] neighbourhood = new int[offsets.length];
+            long hash = 0;
+            for (int j = 0; j < offsets.length; j++) {
+                final int currentX = controlRod.x + offsetX[j];
+                final int currentZ = controlRod.z + offsetZ[j];
+                if (currentX < 0 || currentX >= x || currentZ < 0 || currentZ >= z) {
+                    neighbourhood[j] = -1;
+                } else {
+                    neighbourhood[j] = columnIds[currentX * z + currentZ];
+                }
+                hash = hash * 0x9E3779B97F4A7C15L + neighbourhood[j];
+            }
+            neighbourhoods[i] = neighbourhood;
+            final var sameHash = candidates.computeIfAbsent(hash, h -> new IntArrayList());
+            classOf[i] = -1;
+            for (int j = 0; j < sameHash.size(); j++) {
+                final int candidate = sameHash.getInt(j);
+                if (Arrays.equals(neighbourhoods[classRepresentatives.getInt(candidate)], neighbourhood)) {
+                    classOf[i] = candidate;
+                    // only representatives are compared against
+                    neighbourhoods[i] = null;
+                    break;
+                }
+            }
+            if (classOf[i] == -1) {
+                classOf[i] = classRepresentatives.size();
+                sameHash.add(classOf[i]);
+                classRepresentatives.add(i);
+            }
+        }
+        
+        representativeCount = classRepresentatives.size();
+        positions = new int[controlRods.length];
+        representatives = new int[controlRods.length];
+        classSizes = new int[controlRods.length];
+        int nextMember = representativeCount;
+        for (int i = 0; i < controlRods.length; i++) {
+            final int representative = classOf[i];
+            if (classRepresentatives.getInt(representative) == i) {
+                positions[i] = representative;
+            } else {
+                positions[i] = nextMember++;
+            }
+            representatives[positions[i]] = representative;
+            classSizes[representative]++;
+        }
+    }
+    
+    /**
+     * Puts the representatives of each class first, the order only depends on the rods and moderators these were built from
+     */
+    public void reorder(SimUtil.ControlRod[] controlRods) {
+        final var original = controlRods.clone();
+        for (int i = 0; i < original.length; i++) {
+            controlRods[positions[i]] = original[i];
+        }
+    }
+    
+    /**
+     * Index of the rod irradiated in place of this one, after {@link #reorder}
+     */
+    public int representative(int controlRod) {
+        return representatives[controlRod];
+    }
+    
+    /**
+     * How many rods the representative stands for, 0 for rods that aren't representatives
+     */
+    public int classSize(int controlRod) {
+        return classSizes[controlRod];
+    }
+}
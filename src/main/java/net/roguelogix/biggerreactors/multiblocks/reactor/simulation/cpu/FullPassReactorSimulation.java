@@ -1,5 +1,6 @@
 package net.roguelogix.biggerreactors.multiblocks.reactor.simulation.cpu;
 
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.SimulationConfiguration;
 import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.SimulationDescription;
@@ -7,58 +8,94 @@ import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.base.BaseRea
 import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.base.ModeratorCache;
 import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.base.SimUtil;
 import net.roguelogix.biggerreactors.registries.ReactorModeratorRegistry;
+import net.roguelogix.phosphophyllite.debug.DebugInfo;
 import net.roguelogix.phosphophyllite.threading.Event;
 import net.roguelogix.phosphophyllite.threading.Queues;
 
 import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
 
 public class FullPassReactorSimulation extends BaseReactorSimulation {
     
     protected static final ReactorModeratorRegistry.IModeratorProperties CONTROL_ROD_MODERATOR = new ReactorModeratorRegistry.ModeratorProperties(-1, 0, 1, 0);
     protected final ObjectArrayList<ModeratorCache> moderatorCaches = new ObjectArrayList<>();
-    protected final byte[] moderatorIndices;
+    // shared through the simulation tables until a moderator is swapped, then copied
+    protected byte[] moderatorIndices;
+    private boolean moderatorIndicesShared = true;
+    // linear index and moderator index pairs from replaceModerator, applied before the next irradiation reads them
+    private final IntArrayList pendingModeratorIndices = new IntArrayList();
     protected final double[] initialIntensties;
+    // insertions this tick's intensities were computed from
+    protected final double[] controlRodInsertions;
+    // shared through the simulation tables until a moderator is swapped into a column it leaves out, then rebuilt
+    protected RayTable rayTable;
+    protected final ControlRodClasses controlRodClasses;
+    // moderators swapped in since the simulation was built aren't in the classes
+    private boolean controlRodClassesValid = true;
+    // only the representative of each control rod class is irradiated this tick
+    protected boolean irradiatingRepresentatives = false;
+    // levels in [interiorStart, interiorEnd) have every step of every ray inside the reactor
+    protected final int interiorStart;
+    protected final int interiorEnd;
+    // rods whose rays only cross columns with the same moderator all the way up, all of their interior levels get the same result
+    private final boolean[] uniformRods;
+    private boolean anyUniformRods = false;
+    @Nullable
+    protected final IrradiationCoefficientCache coefficientCache;
+    // rays marched again by the last coefficient cache patch, as rod * rayCount + ray, marks are only allocated once something is patched
+    private final IntArrayList patchedRays = new IntArrayList();
+    @Nullable
+    private boolean[] patchedRayMarks;
+    // rods whose cached results were built while they weren't emitting, those are rebuilt instead of patched
+    private final IntArrayList rebuiltRods = new IntArrayList();
+    private int lastPatchedRays = 0;
+    protected final boolean singlePrecision;
     
     public FullPassReactorSimulation(SimulationDescription simulationDescription, SimulationConfiguration configuration) {
+        this(simulationDescription, configuration, false);
+    }
+    
+    public FullPassReactorSimulation(SimulationDescription simulationDescription, SimulationConfiguration configuration, boolean singlePrecision) {
         super(simulationDescription, configuration);
-        final ObjectArrayList<ReactorModeratorRegistry.IModeratorProperties> moderators = new ObjectArrayList<>();
-        
-        moderators.add(CONTROL_ROD_MODERATOR);
-        for (int i = 0; i < x; i++) {
-            for (int j = 0; j < y; j++) {
-                for (int k = 0; k < z; k++) {
-                    final var moderator = moderatorProperties[i][j][k];
-                    if (moderator != null && !moderators.contains(moderator)) {
-                        moderators.add(moderator);
-                    }
-                }
-            }
-        }
-        if (moderators.size() > 127) {
+        this.singlePrecision = singlePrecision;
+        if (tables.moderatorIndices == null) {
             throw new IllegalArgumentException("Full pass reactor simulations only supports 127 moderator types, switch back to time sliced simulation to load world");
         }
         
-        for (var moderator : moderators) {
-            moderatorCaches.add(new ModeratorCache(moderator));
+        moderatorCaches.add(new ModeratorCache(CONTROL_ROD_MODERATOR));
+        for (int i = 1; i < tables.slotCount(); i++) {
+            moderatorCaches.add(new ModeratorCache(slotModerators[i]));
         }
         
-        moderatorIndices = new byte[x * y * z];
+        moderatorIndices = tables.moderatorIndices;
         
-        for (int i = 0; i < x; i++) {
-            for (int j = 0; j < z; j++) {
-                for (int k = 0; k < y; k++) {
-                    var properties = moderatorProperties[i][k][j];
-                    byte moderatorIndex = 0;
-                    if (properties != null) {
-                        moderatorIndex = (byte) moderators.indexOf(properties);
-                    }
-                    final int linearIndex = (((i * z) + j) * y) + k;
-                    moderatorIndices[linearIndex] = moderatorIndex;
-                }
+        initialIntensties = new double[controlRods.length];
+        controlRodInsertions = new double[controlRods.length];
+        sortIntoZOrder(controlRods);
+        controlRodClasses = tables.controlRodClasses(controlRods);
+        controlRodClasses.reorder(controlRods);
+        rayTable = tables.rayTable(controlRods);
+        int lowestOffsetY = 0;
+        int highestOffsetY = 0;
+        for (final var raySteps : SimUtil.rays) {
+            for (final var step : raySteps) {
+                lowestOffsetY = Math.min(lowestOffsetY, step.offset.y);
+                highestOffsetY = Math.max(highestOffsetY, step.offset.y);
             }
         }
-        
-        initialIntensties = new double[controlRods.length];
+        interiorStart = Math.min(y, -lowestOffsetY);
+        interiorEnd = Math.max(interiorStart, y - highestOffsetY);
+        uniformRods = new boolean[controlRods.length];
+        findUniformRods();
+        final double cacheTemperatureStep = net.roguelogix.biggerreactors.Config.CONFIG.Reactor.ModeSpecific.IrradiationCacheTemperatureStep;
+        if (cacheTemperatureStep > 0) {
+            coefficientCache = new IrradiationCoefficientCache(controlRods.length, moderatorCaches.size(), cacheTemperatureStep, net.roguelogix.biggerreactors.Config.CONFIG.Reactor.ModeSpecific.IrradiationCacheModeratorTolerance, net.roguelogix.biggerreactors.Config.CONFIG.Reactor.ModeSpecific.allowIrradiationCachePatching);
+        } else {
+            coefficientCache = null;
+        }
         
         fullPassIrradiationRequest = new IrradiationRequest(0, controlRods.length, this.moderatorCaches.toArray(new ModeratorCache[0]), y);
         
@@ -76,6 +113,21 @@ public class FullPassReactorSimulation extends BaseReactorSimulation {
         public final ModeratorCache[] moderatorCache;
         public final double[] intensities;
         public final double[] hardnesses;
+        // flattened copies of the moderator cache, for kernels that need to gather from them, absorption and moderation are what the step records below were built from
+        public final double[] absorptions;
+        public final double[] moderations;
+        public final double[] heatEfficiencies;
+        // single precision copies of the above, only used by single precision kernels
+        public final float[] floatIntensities;
+        public final float[] floatHardnesses;
+        public final float[] floatHeatEfficiencies;
+        // what a moderator does to a ray over one ray step, indexed by rayStep * moderatorCache.length + moderatorIndex
+        // rebuilt for a moderator only when its properties change, which for the most part is only coolant in manifolds
+        public final double[] stepAbsorptions;
+        public final double[] stepHardnessFactors;
+        public final float[] floatStepAbsorptions;
+        public final float[] floatStepHardnessFactors;
+        private boolean stepRecordsBuilt = false;
         
         public IrradiationRequest(int baseControlRod, int controlRodCount, ModeratorCache[] moderatorCache, int controlRodLength) {
             this.baseControlRod = baseControlRod;
@@ -86,14 +138,64 @@ public class FullPassReactorSimulation extends BaseReactorSimulation {
             }
             intensities = new double[controlRodLength];
             hardnesses = new double[controlRodLength];
+            absorptions = new double[moderatorCache.length];
+            moderations = new double[moderatorCache.length];
+            heatEfficiencies = new double[moderatorCache.length];
+            floatIntensities = new float[controlRodLength];
+            floatHardnesses = new float[controlRodLength];
+            floatHeatEfficiencies = new float[moderatorCache.length];
+            final int stepRecords = RayTable.rayStepLengths.length * moderatorCache.length;
+            stepAbsorptions = new double[stepRecords];
+            stepHardnessFactors = new double[stepRecords];
+            floatStepAbsorptions = new float[stepRecords];
+            floatStepHardnessFactors = new float[stepRecords];
         }
         
         public void updateCache() {
             //noinspection ForLoopReplaceableByForEach
             for (int i = 0; i < moderatorCache.length; i++) {
-                moderatorCache[i].update();
+                final var cache = moderatorCache[i];
+                cache.update();
+                if (!stepRecordsBuilt || cache.absorption != absorptions[i] || cache.moderation != moderations[i]) {
+                    updateStepRecords(i, cache.absorption, cache.moderation);
+                }
+                absorptions[i] = cache.absorption;
+                moderations[i] = cache.moderation;
+                heatEfficiencies[i] = cache.heatEfficiency;
+                floatHeatEfficiencies[i] = (float) cache.heatEfficiency;
+            }
+            stepRecordsBuilt = true;
+        }
+        
+        private void updateStepRecords(int moderatorIndex, double absorption, double moderation) {
+            final double[] rayStepLengths = RayTable.rayStepLengths;
+            for (int i = 0; i < rayStepLengths.length; i++) {
+                final int record = i * moderatorCache.length + moderatorIndex;
+                stepAbsorptions[record] = absorption * rayStepLengths[i];
+                stepHardnessFactors[record] = 1.0 / ((moderation * rayStepLengths[i]) + 1.0);
+                floatStepAbsorptions[record] = (float) stepAbsorptions[record];
+                floatStepHardnessFactors[record] = (float) stepHardnessFactors[record];
             }
         }
+        
+        public void copyCacheFrom(IrradiationRequest other) {
+            for (int i = 0; i < moderatorCache.length; i++) {
+                final var cache = moderatorCache[i];
+                final var otherCache = other.moderatorCache[i];
+                cache.absorption = otherCache.absorption;
+                cache.moderation = otherCache.moderation;
+                cache.heatEfficiency = otherCache.heatEfficiency;
+            }
+            System.arraycopy(other.absorptions, 0, absorptions, 0, absorptions.length);
+            System.arraycopy(other.moderations, 0, moderations, 0, moderations.length);
+            System.arraycopy(other.heatEfficiencies, 0, heatEfficiencies, 0, heatEfficiencies.length);
+            System.arraycopy(other.floatHeatEfficiencies, 0, floatHeatEfficiencies, 0, floatHeatEfficiencies.length);
+            System.arraycopy(other.stepAbsorptions, 0, stepAbsorptions, 0, stepAbsorptions.length);
+            System.arraycopy(other.stepHardnessFactors, 0, stepHardnessFactors, 0, stepHardnessFactors.length);
+            System.arraycopy(other.floatStepAbsorptions, 0, floatStepAbsorptions, 0, floatStepAbsorptions.length);
+            System.arraycopy(other.floatStepHardnessFactors, 0, floatStepHardnessFactors, 0, floatStepHardnessFactors.length);
+            stepRecordsBuilt = other.stepRecordsBuilt;
+        }
     }
     
     protected static class IrradiationResult {
@@ -102,6 +204,21 @@ public class FullPassReactorSimulation extends BaseReactorSimulation {
         public double caseRFAdded = 0;
     }
     
+    /**
+     * Kahan summation, for adding up many small float values without losing them to the rounding of a large total
+     */
+    protected static final class CompensatedSum {
+        public float sum = 0;
+        private float compensation = 0;
+        
+        public void add(float value) {
+            final float compensated = value - compensation;
+            final float newSum = sum + compensated;
+            compensation = (newSum - sum) - compensated;
+            sum = newSum;
+        }
+    }
+    
     protected double fuelAbsorptionTemperatureCoefficient;
     protected final double FuelAbsorptionCoefficient;
     protected final double FuelModerationFactor;
@@ -123,18 +240,28 @@ public class FullPassReactorSimulation extends BaseReactorSimulation {
         }
         
         setupIrradiationTick();
+        selectIrradiatedRods();
         fullPassIrradiationRequest.updateCache();
-        runIrradiationRequest(fullPassIrradiationRequest);
+        if (coefficientsUsable()) {
+            if (coefficientCache.pendingCount() != 0) {
+                fillIrradiationCoefficients(fullPassIrradiationRequest);
+                copyRepresentativeCoefficients();
+                coefficientCache.finishFill();
+            }
+            coefficientCache.accumulate(initialIntensties, fullPassIrradiationRequest.result);
+        } else {
+            runIrradiationRequest(fullPassIrradiationRequest);
+        }
         collectIrradiationResult(fullPassIrradiationRequest.result);
         return realizeIrradiationTick();
     }
     
     protected void setupIrradiationTick() {
+        if (!pendingModeratorIndices.isEmpty()) {
+            applyPendingModeratorIndices();
+        }
         moderatorCaches.forEach(ModeratorCache::update);
         
-        // Base value for radiation production penalties. 0-1, caps at about 3000C;
-        final double radiationPenaltyBase = Math.exp(-configuration.radPenaltyShiftMultiplier() * Math.exp(-0.001 * configuration.radPenaltyRateMultiplier() * (fuelHeat.temperature() - 273.15)));
-        
         // Raw amount - what's actually in the tanks
         // Effective amount - how
         final long baseFuelAmount = fuelTank.fuel() + (fuelTank.waste() / 100);
@@ -146,18 +273,16 @@ public class FullPassReactorSimulation extends BaseReactorSimulation {
         // Scale up a second time based on scaled amount in each fuel rod. Provides an incentive for making reactors that aren't just pancakes.
         final double scaledRadIntensity = Math.pow((Math.pow((rawRadIntensity), configuration.fuelReactivity()) / controlRods.length), configuration.fuelReactivity()) * controlRods.length;
         
-        // Radiation hardness starts at 20% and asymptotically approaches 100% as heat rises.
-        // This will make radiation harder and harder to capture.
-        initialHardness = Math.min(1.0, 0.2f + (0.8 * radiationPenaltyBase));
+        initialHardness = initialHardnessAt(fuelHeat.temperature());
         
         final double rawIntensity = (1f + (-configuration.radIntensityScalingMultiplier() * Math.exp(-10f * configuration.radIntensityScalingShiftMultiplier() * Math.exp(-0.001f * configuration.radIntensityScalingRateExponentMultiplier() * (fuelHeat.temperature() - 273.15)))));
-        fuelAbsorptionTemperatureCoefficient = (1.0 - (configuration.fuelAbsorptionScalingMultiplier() * Math.exp(-10 * configuration.fuelAbsorptionScalingShiftMultiplier() * Math.exp(-0.001 * configuration.fuelAbsorptionScalingRateExponentMultiplier() * (fuelHeat.temperature() - 273.15)))));
+        fuelAbsorptionTemperatureCoefficient = fuelAbsorptionTemperatureCoefficientAt(fuelHeat.temperature());
 
 //        final double controlRodModifier = 1.0 / controlRods.length;
         
         final double FuelUsageMultiplier = configuration.fuelUsageMultiplier();
         final double FuelPerRadiationUnit = configuration.fuelPerRadiationUnit();
-
+        
         double rawFuelUsage = 0;
         double fuelRFAdded = 0;
         
@@ -177,6 +302,7 @@ public class FullPassReactorSimulation extends BaseReactorSimulation {
             fuelRFAdded += initialIntensity;
             
             initialIntensties[i] = initialIntensity;
+            controlRodInsertions[i] = rod.insertion;
         }
         
         
@@ -184,6 +310,42 @@ public class FullPassReactorSimulation extends BaseReactorSimulation {
         this.fuelRFAdded = fuelRFAdded;
     }
     
+    /**
+     * Rods in a class only see the same thing if the rods their rays cross are inserted the same as well
+     */
+    protected void selectIrradiatedRods() {
+        irradiatingRepresentatives = false;
+        if (!controlRodClassesValid || controlRodClasses.representativeCount == controlRods.length || !net.roguelogix.biggerreactors.Config.CONFIG.Reactor.ModeSpecific.allowControlRodClasses) {
+            return;
+        }
+        final double insertion = controlRods[0].insertion;
+        for (int i = 1; i < controlRods.length; i++) {
+            if (controlRods[i].insertion != insertion) {
+                return;
+            }
+        }
+        irradiatingRepresentatives = true;
+    }
+    
+    /**
+     * Rods irradiated this tick are [0, irradiatedRodCount())
+     */
+    protected int irradiatedRodCount() {
+        return irradiatingRepresentatives ? controlRodClasses.representativeCount : controlRods.length;
+    }
+    
+    protected double initialHardnessAt(double fuelTemperature) {
+        // Base value for radiation production penalties. 0-1, caps at about 3000C;
+        final double radiationPenaltyBase = Math.exp(-configuration.radPenaltyShiftMultiplier() * Math.exp(-0.001 * configuration.radPenaltyRateMultiplier() * (fuelTemperature - 273.15)));
+        // Radiation hardness starts at 20% and asymptotically approaches 100% as heat rises.
+        // This will make radiation harder and harder to capture.
+        return Math.min(1.0, 0.2f + (0.8 * radiationPenaltyBase));
+    }
+    
+    protected double fuelAbsorptionTemperatureCoefficientAt(double fuelTemperature) {
+        return (1.0 - (configuration.fuelAbsorptionScalingMultiplier() * Math.exp(-10 * configuration.fuelAbsorptionScalingShiftMultiplier() * Math.exp(-0.001 * configuration.fuelAbsorptionScalingRateExponentMultiplier() * (fuelTemperature - 273.15)))));
+    }
+    
     protected void collectIrradiationResult(IrradiationResult result) {
         fuelRFAdded += result.fuelRFAdded;
         fuelRadAdded += result.fuelRadAdded;
@@ -202,18 +364,7 @@ public class FullPassReactorSimulation extends BaseReactorSimulation {
         fuelRadAdded /= controlRods.length;
         caseRFAdded /= controlRods.length;
         
-        if (!Double.isNaN(fuelRadAdded)) {
-            if (configuration.fuelRadScalingMultiplier() != 0) {
-                fuelRadAdded *= configuration.fuelRadScalingMultiplier() * (configuration.fuelRodFuelCapacity() / Math.max(1.0, (double) fuelTank().totalStored()));
-            }
-            fuelFertility += fuelRadAdded;
-        }
-        if (!Double.isNaN(fuelRFAdded)) {
-            fuelHeat.absorbRF(fuelRFAdded);
-        }
-        if (!Double.isNaN(caseRFAdded)) {
-            stackHeat.absorbRF(caseRFAdded);
-        }
+        absorbIrradiation(fuelRFAdded, fuelRadAdded, caseRFAdded);
         
         fuelRFAdded = 0;
         fuelRadAdded = 0;
@@ -223,84 +374,371 @@ public class FullPassReactorSimulation extends BaseReactorSimulation {
     }
     
     protected void runIrradiationRequest(IrradiationRequest request) {
+        irradiateRods(request, request.baseControlRod, irradiatingRepresentatives ? controlRodClasses.representativeCount : request.controlRodCount, 0, y, initialHardness, fuelAbsorptionTemperatureCoefficient);
+    }
+    
+    protected void irradiateRods(IrradiationRequest request, int baseControlRod, int controlRodCount, int kStart, int kEnd, double initialHardness, double fuelAbsorptionTemperatureCoefficient) {
+        if (!irradiatingRepresentatives && !anyUniformRods) {
+            irradiate(request, baseControlRod, controlRodCount, kStart, kEnd, controlRodInsertions, initialHardness, fuelAbsorptionTemperatureCoefficient);
+            return;
+        }
+        final var result = request.result;
+        double fuelRFAdded = 0;
+        double fuelRadAdded = 0;
+        double caseRFAdded = 0;
+        final int endControlRod = baseControlRod + controlRodCount;
+        // rods that are irradiated as they are go together in runs
+        int runStart = baseControlRod;
+        for (int i = baseControlRod; i <= endControlRod; i++) {
+            if (i < endControlRod && !irradiatingRepresentatives && !uniformRods[i]) {
+                continue;
+            }
+            if (i > runStart) {
+                irradiate(request, runStart, i - runStart, kStart, kEnd, controlRodInsertions, initialHardness, fuelAbsorptionTemperatureCoefficient);
+                fuelRFAdded += result.fuelRFAdded;
+                fuelRadAdded += result.fuelRadAdded;
+                caseRFAdded += result.caseRFAdded;
+            }
+            if (i < endControlRod) {
+                irradiateRod(request, i, kStart, kEnd, initialHardness, fuelAbsorptionTemperatureCoefficient);
+                // every rod has the same initial intensity, so a representative's result counts once for each rod in its class
+                final int weight = irradiatingRepresentatives ? controlRodClasses.classSize(i) : 1;
+                fuelRFAdded += result.fuelRFAdded * weight;
+                fuelRadAdded += result.fuelRadAdded * weight;
+                caseRFAdded += result.caseRFAdded * weight;
+            }
+            runStart = i + 1;
+        }
+        result.fuelRFAdded = fuelRFAdded;
+        result.fuelRadAdded = fuelRadAdded;
+        result.caseRFAdded = caseRFAdded;
+    }
+    
+    /**
+     * If everything the rod's rays cross is the same all the way up, only one interior level is irradiated, and counted for each of them
+     */
+    protected void irradiateRod(IrradiationRequest request, int controlRod, int kStart, int kEnd, double initialHardness, double fuelAbsorptionTemperatureCoefficient) {
+        final int interiorStart = Math.max(kStart, this.interiorStart);
+        final int interiorEnd = Math.min(kEnd, this.interiorEnd);
+        if (!uniformRods[controlRod] || interiorEnd - interiorStart < 2) {
+            irradiate(request, controlRod, 1, kStart, kEnd, controlRodInsertions, initialHardness, fuelAbsorptionTemperatureCoefficient);
+            return;
+        }
+        final var result = request.result;
+        irradiate(request, controlRod, 1, interiorStart, interiorStart + 1, controlRodInsertions, initialHardness, fuelAbsorptionTemperatureCoefficient);
+        final int interiorLevels = interiorEnd - interiorStart;
+        double fuelRFAdded = result.fuelRFAdded * interiorLevels;
+        double fuelRadAdded = result.fuelRadAdded * interiorLevels;
+        double caseRFAdded = result.caseRFAdded * interiorLevels;
+        if (kStart < interiorStart) {
+            irradiate(request, controlRod, 1, kStart, interiorStart, controlRodInsertions, initialHardness, fuelAbsorptionTemperatureCoefficient);
+            fuelRFAdded += result.fuelRFAdded;
+            fuelRadAdded += result.fuelRadAdded;
+            caseRFAdded += result.caseRFAdded;
+        }
+        if (interiorEnd < kEnd) {
+            irradiate(request, controlRod, 1, interiorEnd, kEnd, controlRodInsertions, initialHardness, fuelAbsorptionTemperatureCoefficient);
+            fuelRFAdded += result.fuelRFAdded;
+            fuelRadAdded += result.fuelRadAdded;
+            caseRFAdded += result.caseRFAdded;
+        }
+        result.fuelRFAdded = fuelRFAdded;
+        result.fuelRadAdded = fuelRadAdded;
+        result.caseRFAdded = caseRFAdded;
+    }
+    
+    /**
+     * A single ray of a single control rod, for every Y level of the rod
+     * Control rods the ray steps through have the insertions given, the initial intensity already includes the ray multiplier
+     */
+    protected void irradiateRay(IrradiationRequest request, int rod, int ray, double[] insertions, double initialIntensity, double initialHardness, double fuelAbsorptionTemperatureCoefficient) {
+        final double FuelAbsorptionCoefficient = this.FuelAbsorptionCoefficient;
+        final double FuelModerationFactor = this.FuelModerationFactor;
+        final double fuelHardnessMultiplier = this.fuelHardnessMultiplier;
+        final double[] intensities = request.intensities;
+        final double[] hardnesses = request.hardnesses;
+        final double[] stepAbsorptions = request.stepAbsorptions;
+        final double[] stepHardnessFactors = request.stepHardnessFactors;
+        final double[] heatEfficiencies = request.heatEfficiencies;
+        final int moderatorCount = heatEfficiencies.length;
+        final int[] stepColumns = rayTable.stepColumns;
+        double fuelRFAdded = 0;
+        double fuelRadAdded = 0;
+        double caseRFAdded = 0;
+        
+        for (int k = 0; k < y; k++) {
+            intensities[k] = initialIntensity;
+            hardnesses[k] = initialHardness;
+        }
+        final int rayIndex = rod * rayTable.rayCount + ray;
+        final int stepsEnd = rayTable.rayStepBase[rayIndex + 1];
+        for (int j = rayTable.rayStepBase[rayIndex]; j < stepsEnd; j++) {
+            final int column = stepColumns[j];
+            final int rayStep = rayTable.stepRaySteps[j];
+            final int offsetY = RayTable.rayStepOffsetY[rayStep];
+            final double stepLength = RayTable.rayStepLengths[rayStep];
+            final int startK = Math.max(0, -offsetY);
+            final int endK = Math.min(y, y - offsetY);
+            if (column >= 0) {
+                final int recordBase = rayStep * moderatorCount;
+                for (int k = startK; k < endK; k++) {
+                    final double neutronIntensity = intensities[k];
+                    final double neutronHardness = hardnesses[k];
+                    final byte moderatorIndex = moderatorIndices[column + k + offsetY];
+                    final double radiationAbsorbed = neutronIntensity * (1.0 - neutronHardness) * stepAbsorptions[recordBase + moderatorIndex];
+                    intensities[k] = Math.max(0, neutronIntensity - radiationAbsorbed);
+                    hardnesses[k] = neutronHardness * stepHardnessFactors[recordBase + moderatorIndex];
+                    caseRFAdded += heatEfficiencies[moderatorIndex] * radiationAbsorbed;
+                }
+            } else {
+                final double controlRodInsertion = insertions[~column] * .001;
+                final double halfRodInsertion = controlRodInsertion * 0.5;
+                final double fuelModerationFactor = FuelModerationFactor + (FuelModerationFactor * controlRodInsertion + controlRodInsertion);
+                final double hardnessMultiplier = 1.0 / (((fuelModerationFactor - 1.0) * stepLength) + 1.0);
+                final double stepFuelAbsorptionCoefficient = FuelAbsorptionCoefficient * stepLength;
+                for (int k = startK; k < endK; k++) {
+                    final double neutronIntensity = intensities[k];
+                    final double neutronHardness = hardnesses[k];
+                    final double baseAbsorption = fuelAbsorptionTemperatureCoefficient * (1.0 - (neutronHardness * fuelHardnessMultiplier));
+                    final double scaledAbsorption = baseAbsorption * stepFuelAbsorptionCoefficient;
+                    final double controlRodBonus = (1.0 - scaledAbsorption) * halfRodInsertion;
+                    final double controlRodPenalty = scaledAbsorption * halfRodInsertion;
+                    
+                    final double radiationAbsorbed = (scaledAbsorption + controlRodBonus) * neutronIntensity;
+                    final double fertilityAbsorbed = (scaledAbsorption - controlRodPenalty) * neutronIntensity;
+                    
+                    intensities[k] = Math.max(0, neutronIntensity - radiationAbsorbed);
+                    hardnesses[k] = neutronHardness * hardnessMultiplier;
+                    fuelRFAdded += radiationAbsorbed;
+                    fuelRadAdded += fertilityAbsorbed;
+                }
+            }
+        }
+        request.result.fuelRFAdded = fuelRFAdded;
+        request.result.fuelRadAdded = fuelRadAdded;
+        request.result.caseRFAdded = caseRFAdded;
+    }
+    
+    /**
+     * Fills the pending grid points of the coefficient cache for the control rods, one rod at a time
+     * Only touches the cache entries for those rods, so requests with distinct rods can fill concurrently
+     */
+    protected void fillIrradiationCoefficients(IrradiationRequest request) {
+        fillIrradiationCoefficients(request, request.baseControlRod, irradiatingRepresentatives ? controlRodClasses.representativeCount : request.controlRodCount);
+    }
+    
+    /**
+     * When only the representatives were filled, the rest of each class gets the same coefficients, all initial intensities are the same
+     */
+    protected void copyRepresentativeCoefficients() {
+        if (!irradiatingRepresentatives) {
+            return;
+        }
+        assert coefficientCache != null;
+        for (int i = 0; i < coefficientCache.pendingCount(); i++) {
+            final double[] gridPoint = coefficientCache.pendingPoint(i);
+            for (int j = controlRodClasses.representativeCount; j < controlRods.length; j++) {
+                System.arraycopy(gridPoint, controlRodClasses.representative(j) * IrradiationCoefficientCache.STRIDE, gridPoint, j * IrradiationCoefficientCache.STRIDE, IrradiationCoefficientCache.STRIDE);
+            }
+        }
+    }
+    
+    /**
+     * Validates and prepares the coefficient cache for this tick, patching it for any control rods whose insertion changed
+     * Moderator caches and initial intensities must already be updated for this tick
+     *
+     * @return false if the caller should do a normal pass instead of using the cache
+     */
+    protected boolean coefficientsUsable() {
+        if (coefficientCache == null || !coefficientCache.validate(controlRods, moderatorCaches)) {
+            return false;
+        }
+        if (coefficientCache.changedRodCount() != 0 && !patchIrradiationCoefficients()) {
+            return false;
+        }
+        return coefficientCache.prepare(fuelHeat.temperature());
+    }
+    
+    /**
+     * Only the rays that step through a control rod whose insertion changed see anything different, those are marched with the old and new insertions
+     * and the difference is added to every kept grid point, everything else in the grid is still right
+     *
+     * @return false if the cache was dropped instead, when so many rays are affected that a normal pass is cheaper
+     */
+    private boolean patchIrradiationCoefficients() {
+        assert coefficientCache != null;
+        final int rayCount = rayTable.rayCount;
+        final int[][] crossingRays = rayTable.crossingRays();
+        final double[] previousInsertions = coefficientCache.previousInsertions();
+        if (patchedRayMarks == null || patchedRayMarks.length != controlRods.length * rayCount) {
+            patchedRayMarks = new boolean[controlRods.length * rayCount];
+        }
+        final boolean[] patchedRayMarks = this.patchedRayMarks;
+        patchedRays.clear();
+        rebuiltRods.clear();
+        for (int i = 0; i < coefficientCache.changedRodCount(); i++) {
+            final int rod = coefficientCache.changedRod(i);
+            for (final int pair : crossingRays[rod]) {
+                if (!patchedRayMarks[pair]) {
+                    patchedRayMarks[pair] = true;
+                    patchedRays.add(pair);
+                }
+            }
+            // a rod at full insertion didn't emit, so it was cached as nothing at all, there's nothing to patch
+            if (previousInsertions[rod] >= 100) {
+                rebuiltRods.add(rod);
+                for (int j = 0; j < rayCount; j++) {
+                    final int pair = rod * rayCount + j;
+                    if (!patchedRayMarks[pair]) {
+                        patchedRayMarks[pair] = true;
+                        patchedRays.add(pair);
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < patchedRays.size(); i++) {
+            patchedRayMarks[patchedRays.getInt(i)] = false;
+        }
+        lastPatchedRays = patchedRays.size();
+        final int pointCount = coefficientCache.patchPointCount();
+        // every patched ray is marched twice per grid point, a normal pass marches every ray once
+        if ((long) patchedRays.size() * 2 * pointCount >= (long) controlRods.length * rayCount) {
+            coefficientCache.invalidate();
+            return false;
+        }
+        
+        final var request = fullPassIrradiationRequest;
+        final var result = request.result;
+        request.updateCache();
+        for (int i = 0; i < pointCount; i++) {
+            final double[] gridPoint = coefficientCache.patchPoint(i);
+            final double temperature = coefficientCache.patchTemperature(i);
+            final double initialHardness = initialHardnessAt(temperature);
+            final double fuelAbsorptionTemperatureCoefficient = fuelAbsorptionTemperatureCoefficientAt(temperature);
+            for (int j = 0; j < rebuiltRods.size(); j++) {
+                Arrays.fill(gridPoint, rebuiltRods.getInt(j) * IrradiationCoefficientCache.STRIDE, (rebuiltRods.getInt(j) + 1) * IrradiationCoefficientCache.STRIDE, 0);
+            }
+            for (int j = 0; j < patchedRays.size(); j++) {
+                final int pair = patchedRays.getInt(j);
+                final int rod = pair / rayCount;
+                final int ray = pair % rayCount;
+                double fuelRFAdded = 0;
+                double fuelRadAdded = 0;
+                double caseRFAdded = 0;
+                // cached results are per unit of initial intensity
+                if (previousInsertions[rod] < 100) {
+                    irradiateRay(request, rod, ray, previousInsertions, rayMultiplier, initialHardness, fuelAbsorptionTemperatureCoefficient);
+                    fuelRFAdded = -result.fuelRFAdded;
+                    fuelRadAdded = -result.fuelRadAdded;
+                    caseRFAdded = -result.caseRFAdded;
+                }
+                irradiateRay(request, rod, ray, controlRodInsertions, rayMultiplier, initialHardness, fuelAbsorptionTemperatureCoefficient);
+                final int base = rod * IrradiationCoefficientCache.STRIDE;
+                gridPoint[base + IrradiationCoefficientCache.FUEL_RF] += fuelRFAdded + result.fuelRFAdded;
+                gridPoint[base + IrradiationCoefficientCache.FUEL_RAD] += fuelRadAdded + result.fuelRadAdded;
+                gridPoint[base + IrradiationCoefficientCache.CASE_RF] += caseRFAdded + result.caseRFAdded;
+            }
+        }
+        result.fuelRFAdded = 0;
+        result.fuelRadAdded = 0;
+        result.caseRFAdded = 0;
+        coefficientCache.finishPatch();
+        return true;
+    }
+    
+    protected void fillIrradiationCoefficients(IrradiationRequest request, int baseControlRod, int controlRodCount) {
+        assert coefficientCache != null;
+        final var result = request.result;
+        for (int i = 0; i < coefficientCache.pendingCount(); i++) {
+            final double[] gridPoint = coefficientCache.pendingPoint(i);
+            final double temperature = coefficientCache.pendingTemperature(i);
+            final double initialHardness = initialHardnessAt(temperature);
+            final double fuelAbsorptionTemperatureCoefficient = fuelAbsorptionTemperatureCoefficientAt(temperature);
+            for (int j = 0; j < controlRodCount; j++) {
+                final int rod = baseControlRod + j;
+                irradiateRod(request, rod, 0, y, initialHardness, fuelAbsorptionTemperatureCoefficient);
+                // a rod that isn't emitting anything right now has no contribution to scale, it's rebuilt when its insertion changes
+                final double intensity = initialIntensties[rod];
+                final double scale = intensity == 0 ? 0 : 1.0 / intensity;
+                final int base = rod * IrradiationCoefficientCache.STRIDE;
+                gridPoint[base + IrradiationCoefficientCache.FUEL_RF] = result.fuelRFAdded * scale;
+                gridPoint[base + IrradiationCoefficientCache.FUEL_RAD] = result.fuelRadAdded * scale;
+                gridPoint[base + IrradiationCoefficientCache.CASE_RF] = result.caseRFAdded * scale;
+            }
+        }
+        result.fuelRFAdded = 0;
+        result.fuelRadAdded = 0;
+        result.caseRFAdded = 0;
+    }
+    
+    /**
+     * Irradiates from the given control rods, only for rays starting in [kStart, kEnd) of the rods, each Y level is independent of the others
+     */
+    protected void irradiate(IrradiationRequest request, int baseControlRod, int controlRodCount, int kStart, int kEnd, double[] insertions, double initialHardness, double fuelAbsorptionTemperatureCoefficient) {
+        if (singlePrecision) {
+            irradiateSinglePrecision(request, baseControlRod, controlRodCount, kStart, kEnd, insertions, (float) initialHardness, (float) fuelAbsorptionTemperatureCoefficient);
+            return;
+        }
         final double FuelAbsorptionCoefficient = this.FuelAbsorptionCoefficient;
         final double FuelModerationFactor = this.FuelModerationFactor;
         final double fuelHardnessMultiplier = this.fuelHardnessMultiplier;
         final double rayMultiplier = this.rayMultiplier;
-        final var moderatorCache = request.moderatorCache;
         double fuelRFAdded = 0;
         double fuelRadAdded = 0;
         double caseRFAdded = 0;
         double[] intensities = request.intensities;
         double[] hardnesses = request.hardnesses;
-        int rods = 0;
-        for (int cro = 0; cro < request.controlRodCount; cro++) {
-            final int cri = cro + request.baseControlRod;
-            final var controlRod = controlRods[cri];
+        final double[] stepAbsorptions = request.stepAbsorptions;
+        final double[] stepHardnessFactors = request.stepHardnessFactors;
+        final double[] heatEfficiencies = request.heatEfficiencies;
+        final int moderatorCount = heatEfficiencies.length;
+        final int rayCount = rayTable.rayCount;
+        final int[] rayStepBase = rayTable.rayStepBase;
+        final int[] stepColumns = rayTable.stepColumns;
+        final int[] stepRaySteps = rayTable.stepRaySteps;
+        final int[] rayStepOffsetY = RayTable.rayStepOffsetY;
+        final double[] rayStepLengths = RayTable.rayStepLengths;
+        for (int cro = 0; cro < controlRodCount; cro++) {
+            final int cri = cro + baseControlRod;
             final var initialIntensity = initialIntensties[cri] * rayMultiplier;
-            for (int i = 0; i < SimUtil.rays.size(); i++) {
-                for (int j = 0; j < intensities.length; j++) {
+            for (int i = 0; i < rayCount; i++) {
+                for (int j = kStart; j < kEnd; j++) {
                     intensities[j] = initialIntensity;
                     hardnesses[j] = initialHardness;
                 }
-                final var raySteps = SimUtil.rays.get(i);
-                //noinspection ForLoopReplaceableByForEach
-                for (int j = 0; j < raySteps.size(); j++) {
-                    final var step = raySteps.get(j);
-                    final int currentX = controlRod.x + step.offset.x;
-                    final int offsetY = step.offset.y;
-                    final int currentZ = controlRod.z + step.offset.z;
-                    if (currentX < 0 || currentX >= this.x ||
-                                currentZ < 0 || currentZ >= this.z) {
-                        break;
-                    }
-                    int moderatorIndexIndex = ((((currentX * z) + currentZ)) * y);
-                    final byte baseModeratorIndex = getModeratorIndex(moderatorIndexIndex);
-                    if (baseModeratorIndex != 0) {
-                        for (int k = 0; k < y; k++) {
-                            final var currentY = k + offsetY;
-                            if (currentY < 0) {
-                                // skip until == 0
-                                k -= currentY;
-                                k--;
-                                continue;
-                            }
-                            if (currentY >= y) {
-                                break;
-                            }
+                final int rayIndex = cri * rayCount + i;
+                final int stepsEnd = rayStepBase[rayIndex + 1];
+                for (int j = rayStepBase[rayIndex]; j < stepsEnd; j++) {
+                    final int column = stepColumns[j];
+                    final int rayStep = stepRaySteps[j];
+                    final int offsetY = rayStepOffsetY[rayStep];
+                    final double stepLength = rayStepLengths[rayStep];
+                    // only the part of the slab that the offset Y keeps inside the reactor
+                    final int startK = Math.max(kStart, -offsetY);
+                    final int endK = Math.min(kEnd, y - offsetY);
+                    if (column >= 0) {
+                        final int recordBase = rayStep * moderatorCount;
+                        for (int k = startK; k < endK; k++) {
+                            final int currentY = k + offsetY;
                             final double neutronIntensity = intensities[k];
                             final double neutronHardness = hardnesses[k];
                             
-                            final byte moderatorIndex = moderatorIndices[moderatorIndexIndex + currentY];
-                            final var properties = moderatorCache[moderatorIndex];
-                            final double radiationAbsorbed = neutronIntensity * properties.absorption * (1.0 - neutronHardness) * step.length;
+                            final byte moderatorIndex = moderatorIndices[column + currentY];
+                            final double radiationAbsorbed = neutronIntensity * (1.0 - neutronHardness) * stepAbsorptions[recordBase + moderatorIndex];
                             intensities[k] = Math.max(0, neutronIntensity - radiationAbsorbed);
-                            hardnesses[k] = neutronHardness / ((properties.moderation * step.length) + 1.0);
-                            caseRFAdded += properties.heatEfficiency * radiationAbsorbed;
+                            hardnesses[k] = neutronHardness * stepHardnessFactors[recordBase + moderatorIndex];
+                            caseRFAdded += heatEfficiencies[moderatorIndex] * radiationAbsorbed;
                         }
                     } else {
                         // Scale control rod insertion 0..1
-                        // TODO: race condition with computer craft is possible here
-                        final double controlRodInsertion = controlRodsXZ[currentX][currentZ].insertion * .001;
+                        final double controlRodInsertion = insertions[~column] * .001;
                         final double halfRodInsertion = controlRodInsertion * 0.5;
                         // Full insertion doubles the moderation factor of the fuel as well as adding its own level
                         final double fuelModerationFactor = FuelModerationFactor + (FuelModerationFactor * controlRodInsertion + controlRodInsertion);
-                        final double hardnessMultiplier = 1.0 / (((fuelModerationFactor - 1.0) * step.length) + 1.0);
-                        final double stepFuelAbsorptionCoefficient = FuelAbsorptionCoefficient * step.length;
+                        final double hardnessMultiplier = 1.0 / (((fuelModerationFactor - 1.0) * stepLength) + 1.0);
+                        final double stepFuelAbsorptionCoefficient = FuelAbsorptionCoefficient * stepLength;
                         
-                        for (int k = 0; k < y; k++) {
-                            final var currentY = k + offsetY;
-                            if (currentY < 0) {
-                                // skip until == 0
-                                k -= currentY;
-                                k--;
-                                continue;
-                            }
-                            if (currentY >= y) {
-                                break;
-                            }
-                            rods++;
-                            
+                        for (int k = startK; k < endK; k++) {
                             final double neutronIntensity = intensities[k];
                             final double neutronHardness = hardnesses[k];
                             // Fuel absorptiveness is determined by control rod + a heat modifier.
@@ -334,71 +772,319 @@ public class FullPassReactorSimulation extends BaseReactorSimulation {
         request.result.caseRFAdded = caseRFAdded;
     }
     
+    /**
+     * Same as {@link #irradiate}, but in float, as the OpenCL kernel does it
+     * Each ray is summed on its own, which keeps the float sums short, and the ray sums are added up with {@link CompensatedSum}
+     */
+    protected void irradiateSinglePrecision(IrradiationRequest request, int baseControlRod, int controlRodCount, int kStart, int kEnd, double[] insertions, float initialHardness, float fuelAbsorptionTemperatureCoefficient) {
+        final float FuelAbsorptionCoefficient = (float) this.FuelAbsorptionCoefficient;
+        final float FuelModerationFactor = (float) this.FuelModerationFactor;
+        final float fuelHardnessMultiplier = (float) this.fuelHardnessMultiplier;
+        final double rayMultiplier = this.rayMultiplier;
+        final var fuelRFAdded = new CompensatedSum();
+        final var fuelRadAdded = new CompensatedSum();
+        final var caseRFAdded = new CompensatedSum();
+        final float[] intensities = request.floatIntensities;
+        final float[] hardnesses = request.floatHardnesses;
+        final float[] stepAbsorptions = request.floatStepAbsorptions;
+        final float[] stepHardnessFactors = request.floatStepHardnessFactors;
+        final float[] heatEfficiencies = request.floatHeatEfficiencies;
+        final int moderatorCount = heatEfficiencies.length;
+        final int rayCount = rayTable.rayCount;
+        final int[] rayStepBase = rayTable.rayStepBase;
+        final int[] stepColumns = rayTable.stepColumns;
+        final int[] stepRaySteps = rayTable.stepRaySteps;
+        final int[] rayStepOffsetY = RayTable.rayStepOffsetY;
+        final double[] rayStepLengths = RayTable.rayStepLengths;
+        for (int cro = 0; cro < controlRodCount; cro++) {
+            final int cri = cro + baseControlRod;
+            final float initialIntensity = (float) (initialIntensties[cri] * rayMultiplier);
+            for (int i = 0; i < rayCount; i++) {
+                for (int j = kStart; j < kEnd; j++) {
+                    intensities[j] = initialIntensity;
+                    hardnesses[j] = initialHardness;
+                }
+                float rayFuelRFAdded = 0;
+                float rayFuelRadAdded = 0;
+                float rayCaseRFAdded = 0;
+                final int rayIndex = cri * rayCount + i;
+                final int stepsEnd = rayStepBase[rayIndex + 1];
+                for (int j = rayStepBase[rayIndex]; j < stepsEnd; j++) {
+                    final int column = stepColumns[j];
+                    final int rayStep = stepRaySteps[j];
+                    final int offsetY = rayStepOffsetY[rayStep];
+                    final float stepLength = (float) rayStepLengths[rayStep];
+                    final int startK = Math.max(kStart, -offsetY);
+                    final int endK = Math.min(kEnd, y - offsetY);
+                    if (column >= 0) {
+                        final int recordBase = rayStep * moderatorCount;
+                        for (int k = startK; k < endK; k++) {
+                            final float neutronIntensity = intensities[k];
+                            final float neutronHardness = hardnesses[k];
+                            
+                            final byte moderatorIndex = moderatorIndices[column + k + offsetY];
+                            final float radiationAbsorbed = neutronIntensity * (1.0f - neutronHardness) * stepAbsorptions[recordBase + moderatorIndex];
+                            intensities[k] = Math.max(0, neutronIntensity - radiationAbsorbed);
+                            hardnesses[k] = neutronHardness * stepHardnessFactors[recordBase + moderatorIndex];
+                            rayCaseRFAdded += heatEfficiencies[moderatorIndex] * radiationAbsorbed;
+                        }
+                    } else {
+                        final float controlRodInsertion = (float) (insertions[~column] * .001);
+                        final float halfRodInsertion = controlRodInsertion * 0.5f;
+                        final float fuelModerationFactor = FuelModerationFactor + (FuelModerationFactor * controlRodInsertion + controlRodInsertion);
+                        final float hardnessMultiplier = 1.0f / (((fuelModerationFactor - 1.0f) * stepLength) + 1.0f);
+                        final float stepFuelAbsorptionCoefficient = FuelAbsorptionCoefficient * stepLength;
+                        
+                        for (int k = startK; k < endK; k++) {
+                            final float neutronIntensity = intensities[k];
+                            final float neutronHardness = hardnesses[k];
+                            final float baseAbsorption = fuelAbsorptionTemperatureCoefficient * (1.0f - (neutronHardness * fuelHardnessMultiplier));
+                            final float scaledAbsorption = baseAbsorption * stepFuelAbsorptionCoefficient;
+                            final float controlRodBonus = (1.0f - scaledAbsorption) * halfRodInsertion;
+                            final float controlRodPenalty = scaledAbsorption * halfRodInsertion;
+                            
+                            final float radiationAbsorbed = (scaledAbsorption + controlRodBonus) * neutronIntensity;
+                            final float fertilityAbsorbed = (scaledAbsorption - controlRodPenalty) * neutronIntensity;
+                            
+                            intensities[k] = Math.max(0, neutronIntensity - radiationAbsorbed);
+                            hardnesses[k] = neutronHardness * hardnessMultiplier;
+                            rayFuelRFAdded += radiationAbsorbed;
+                            rayFuelRadAdded += fertilityAbsorbed;
+                        }
+                    }
+                }
+                fuelRFAdded.add(rayFuelRFAdded);
+                fuelRadAdded.add(rayFuelRadAdded);
+                caseRFAdded.add(rayCaseRFAdded);
+            }
+        }
+        request.result.fuelRFAdded = fuelRFAdded.sum;
+        request.result.fuelRadAdded = fuelRadAdded.sum;
+        request.result.caseRFAdded = caseRFAdded.sum;
+    }
+    
+    @Override
+    protected boolean replaceModerator(int x, int y, int z, ReactorModeratorRegistry.IModeratorProperties properties) {
+        for (int i = 1; i < moderatorCaches.size(); i++) {
+            if (moderatorCaches.get(i).isFor(properties)) {
+                pendingModeratorIndices.add((((x * this.z) + z) * this.y) + y);
+                pendingModeratorIndices.add(i);
+                return true;
+            }
+        }
+        // a new moderator type needs a slot in every request's caches, that's a rebuild
+        return false;
+    }
+    
+    /**
+     * Nothing can be irradiating when this is called
+     */
+    private void applyPendingModeratorIndices() {
+        if (moderatorIndicesShared) {
+            moderatorIndices = moderatorIndices.clone();
+            moderatorIndicesShared = false;
+        }
+        boolean rayTableValid = true;
+        for (int i = 0; i < pendingModeratorIndices.size(); i += 2) {
+            final int linearIndex = pendingModeratorIndices.getInt(i);
+            final int moderatorIndex = pendingModeratorIndices.getInt(i + 1);
+            setModeratorIndex(linearIndex, (byte) moderatorIndex);
+            if (!tables.transparentSlots[moderatorIndex] && rayTable.skipsColumn(linearIndex / y)) {
+                rayTableValid = false;
+            }
+        }
+        pendingModeratorIndices.clear();
+        if (!rayTableValid) {
+            rayTable = new RayTable(controlRods, x, y, z, moderatorIndices, tables.transparentSlots);
+        }
+        controlRodClassesValid = false;
+        findUniformRods();
+        if (coefficientCache != null) {
+            coefficientCache.invalidate();
+        }
+    }
+    
+    private void findUniformRods() {
+        anyUniformRods = false;
+        if (interiorEnd - interiorStart < 2) {
+            return;
+        }
+        final boolean[] uniformColumns = new boolean[x * z];
+        for (int i = 0; i < uniformColumns.length; i++) {
+            final int base = i * y;
+            boolean uniform = true;
+            for (int j = 1; j < y && uniform; j++) {
+                uniform = moderatorIndices[base + j] == moderatorIndices[base];
+            }
+            uniformColumns[i] = uniform;
+        }
+        final int rayCount = rayTable.rayCount;
+        for (int i = 0; i < controlRods.length; i++) {
+            boolean uniform = true;
+            final int stepsEnd = rayTable.rayStepBase[(i + 1) * rayCount];
+            for (int j = rayTable.rayStepBase[i * rayCount]; j < stepsEnd && uniform; j++) {
+                final int column = rayTable.stepColumns[j];
+                // control rods are the same all the way up
+                uniform = column < 0 || uniformColumns[column / y];
+            }
+            uniformRods[i] = uniform;
+            anyUniformRods |= uniform;
+        }
+    }
+    
+    /**
+     * Irradiation goes through the rods in Z order, consecutive rods are close together at every scale, so the moderator columns their rays cross are still cached from the rods before
+     * Multithreaded irradiation splits the rods into contiguous ranges, in this order each of those covers a compact area too
+     * Only depends on the layout, so every simulation sharing the tables agrees on it, and on the ray table built for it
+     */
+    private static void sortIntoZOrder(SimUtil.ControlRod[] controlRods) {
+        Arrays.sort(controlRods, Comparator.comparingLong(rod -> spreadBits(rod.x) | (spreadBits(rod.z) << 1)));
+    }
+    
+    /**
+     * Low 16 bits of the value, moved to every other bit
+     */
+    private static long spreadBits(int value) {
+        long spread = value & 0xFFFFL;
+        spread = (spread | (spread << 8)) & 0x00FF00FFL;
+        spread = (spread | (spread << 4)) & 0x0F0F0F0FL;
+        spread = (spread | (spread << 2)) & 0x33333333L;
+        spread = (spread | (spread << 1)) & 0x55555555L;
+        return spread;
+    }
+    
+    @Override
+    public DebugInfo getDebugInfo() {
+        final var info = super.getDebugInfo();
+        info.add("ControlRodClasses: " + controlRodClasses.representativeCount + "/" + controlRods.length + (irradiatingRepresentatives ? "" : " (not in use)"));
+        int uniformRodCount = 0;
+        for (final boolean uniform : uniformRods) {
+            if (uniform) {
+                uniformRodCount++;
+            }
+        }
+        info.add("RaySteps: " + rayTable.rayStepBase[rayTable.rayStepBase.length - 1] + ", " + rayTable.skippedSteps + " through transparent columns left out");
+        info.add("UniformControlRods: " + uniformRodCount + "/" + controlRods.length + ", levels " + interiorStart + " to " + interiorEnd + " irradiated once");
+        if (coefficientCache != null) {
+            info.add("IrradiationCache: " + coefficientCache.gridPointCount() + " grid points, last patch marched " + lastPatchedRays + "/" + controlRods.length * rayTable.rayCount + " rays");
+        }
+        return info;
+    }
+    
+    protected void setModeratorIndex(int moderatorIndexIndex, byte moderatorIndex) {
+        moderatorIndices[moderatorIndexIndex] = moderatorIndex;
+    }
+    
     protected byte getModeratorIndex(int moderatorIndexIndex) {
         return moderatorIndices[moderatorIndexIndex];
     }
     
     public static class MultiThreaded extends FullPassReactorSimulation {
         
-        @Nullable
-        protected final Runnable[] irradiationRequestRunnables;
-        @Nullable
-        protected final IrradiationRequest[] irradiationRequests;
-        @Nullable
-        protected final Event[] irradiationRequestEvents;
+        // below this many Y levels a rod isn't split any further
+        private static final int MIN_SLAB_HEIGHT = 8;
+        
+        private final boolean singleThread;
+        // irradiates on the thread that ticks it, like the base full pass simulation, for callers that are already off the server thread
+        private final boolean inline;
         @Nullable
         private Event doneEvent;
-        private final Runnable mainRunnable = () -> runIrradiationRequest(fullPassIrradiationRequest);
+        private final Runnable mainRunnable = () -> {
+            final long start = System.nanoTime();
+            runBatch(fullPassIrradiationRequest);
+            offThreadNanos = System.nanoTime() - start;
+        };
+        private volatile double offThreadNanos;
+        @Nullable
+        private IrradiationTask rootTask;
+        private boolean coefficientFillPending = false;
+        
+        // scratch requests, indexed by fork join worker pool index, created the first time a worker runs a leaf
+        private final IrradiationRequest[] workerRequests;
+        private final ModeratorCache[] moderatorCacheArray;
+        private final int workerThreads;
+        // measured time (ns) of each rod's full column, from the last tick it was irradiated
+        private final double[] rodCosts;
+        private final double[] rodCostPrefix;
+        private double leafCost;
+        private int irradiatedRods;
         
         public MultiThreaded(SimulationDescription simulationDescription, SimulationConfiguration configuration) {
             this(simulationDescription, configuration, false);
         }
         
         public MultiThreaded(SimulationDescription simulationDescription, SimulationConfiguration configuration, boolean singleThread) {
-            super(simulationDescription, configuration);
+            this(simulationDescription, configuration, singleThread, false);
+        }
+        
+        public MultiThreaded(SimulationDescription simulationDescription, SimulationConfiguration configuration, boolean singleThread, boolean singlePrecision) {
+            this(simulationDescription, configuration, singleThread, singlePrecision, false);
+        }
+        
+        public MultiThreaded(SimulationDescription simulationDescription, SimulationConfiguration configuration, boolean singleThread, boolean singlePrecision, boolean inline) {
+            super(simulationDescription, configuration, singlePrecision);
+            this.singleThread = singleThread || inline;
+            this.inline = inline;
             
-            if (!singleThread) {
-                final var cacheArray = this.moderatorCaches.toArray(new ModeratorCache[0]);
-                final int batchSize = net.roguelogix.biggerreactors.Config.CONFIG.Reactor.ModeSpecific.ControlRodBatchSize;
-                final int batches = controlRods.length / batchSize + ((controlRods.length % batchSize == 0) ? 0 : 1);
-                irradiationRequestRunnables = new Runnable[batches];
-                irradiationRequests = new IrradiationRequest[batches];
-                irradiationRequestEvents = new Event[batches];
-                for (int i = 0; i < batches; i++) {
-                    int baseRod = i * batchSize;
-                    int rodCount = Math.min(batchSize, controlRods.length - baseRod);
-                    final var request = new IrradiationRequest(baseRod, rodCount, cacheArray, y);
-                    irradiationRequestRunnables[i] = () -> runIrradiationRequest(request);
-                    irradiationRequests[i] = request;
+            rodCosts = new double[controlRods.length];
+            rodCostPrefix = new double[controlRods.length + 1];
+            moderatorCacheArray = this.moderatorCaches.toArray(new ModeratorCache[0]);
+            if (!this.singleThread) {
+                workerThreads = IrradiationWorkers.pool().getParallelism();
+                // pool indices are sparse, but stay under twice the parallelism rounded up to a power of two
+                workerRequests = new IrradiationRequest[Integer.highestOneBit(Math.max(1, workerThreads * 2 - 1)) * 2];
+                // until there are measurements, how many ray steps a rod has is a good guess of its relative cost
+                final int rayCount = rayTable.rayCount;
+                for (int i = 0; i < controlRods.length; i++) {
+                    rodCosts[i] = rayTable.rayStepBase[(i + 1) * rayCount] - rayTable.rayStepBase[i * rayCount];
                 }
             } else {
-                irradiationRequestRunnables = null;
-                irradiationRequests = null;
-                irradiationRequestEvents = null;
+                workerRequests = new IrradiationRequest[0];
+                workerThreads = 1;
             }
         }
         
         @Override
         protected double radiate() {
-            if (irradiationRequests != null && irradiationRequestEvents != null && irradiationRequestRunnables != null) {
-                for (int i = 0; i < irradiationRequests.length; i++) {
-                    final var event = irradiationRequestEvents[i];
-                    if (event != null) {
-                        event.join();
-                        irradiationRequestEvents[i] = null;
-                        collectIrradiationResult(irradiationRequests[i].result);
-                    }
-                }
-            } else {
-                if (doneEvent != null) {
-                    doneEvent.join();
-                    doneEvent = null;
-                    collectIrradiationResult(fullPassIrradiationRequest.result);
-                }
+            if (inline) {
+                return super.radiate();
+            }
+            if (rootTask != null) {
+                // nothing has dispatched this tick's work yet (ie: no server tick hook), so it's on this reactor to do it
+                IrradiationScheduler.dispatch();
+                rootTask.join();
+                fullPassIrradiationRequest.result.fuelRFAdded += rootTask.fuelRFAdded;
+                fullPassIrradiationRequest.result.fuelRadAdded += rootTask.fuelRadAdded;
+                fullPassIrradiationRequest.result.caseRFAdded += rootTask.caseRFAdded;
+                rootTask = null;
+                collectIrradiationResult(fullPassIrradiationRequest.result);
+            }
+            if (doneEvent != null) {
+                doneEvent.join();
+                doneEvent = null;
+                collectIrradiationResult(fullPassIrradiationRequest.result);
+            }
+            if (coefficientFillPending) {
+                coefficientFillPending = false;
+                assert coefficientCache != null;
+                copyRepresentativeCoefficients();
+                coefficientCache.finishFill();
+                coefficientCache.accumulate(initialIntensties, fullPassIrradiationRequest.result);
+            }
+            if (coefficientCache != null) {
+                collectIrradiationResult(fullPassIrradiationRequest.result);
             }
             return realizeIrradiationTick();
         }
         
+        private void runBatch(IrradiationRequest request) {
+            if (coefficientFillPending) {
+                fillIrradiationCoefficients(request);
+            } else {
+                runIrradiationRequest(request);
+            }
+        }
+        
         @Override
         protected void startNextRadiate() {
             if (fuelTank.fuel() <= 0) {
@@ -406,11 +1092,30 @@ public class FullPassReactorSimulation extends BaseReactorSimulation {
             }
             
             setupIrradiationTick();
-            if (irradiationRequests != null && irradiationRequestEvents != null && irradiationRequestRunnables != null) {
-                for (int i = 0; i < irradiationRequests.length; i++) {
-                    irradiationRequests[i].updateCache();
-                    irradiationRequestEvents[i] = Queues.offThread.enqueue(irradiationRequestRunnables[i]);
+            selectIrradiatedRods();
+            if (coefficientsUsable()) {
+                if (coefficientCache.pendingCount() == 0) {
+                    // everything needed is already cached, nothing to send off thread
+                    coefficientCache.accumulate(initialIntensties, fullPassIrradiationRequest.result);
+                    return;
                 }
+                coefficientFillPending = true;
+            }
+            if (!singleThread) {
+                // workers copy from this, root moderators are only safe to read on this thread
+                fullPassIrradiationRequest.updateCache();
+                for (int i = 0; i < workerRequests.length; i++) {
+                    if (workerRequests[i] != null) {
+                        workerRequests[i].copyCacheFrom(fullPassIrradiationRequest);
+                    }
+                }
+                for (int i = 0; i < controlRods.length; i++) {
+                    rodCostPrefix[i + 1] = rodCostPrefix[i] + rodCosts[i];
+                }
+                irradiatedRods = irradiatedRodCount();
+                leafCost = rodCostPrefix[irradiatedRods] / (workerThreads * net.roguelogix.biggerreactors.Config.CONFIG.Reactor.ModeSpecific.IrradiationTasksPerThread);
+                rootTask = new IrradiationTask(0, irradiatedRods, 0, y);
+                IrradiationScheduler.submit(rootTask, rodCostPrefix[irradiatedRods]);
             } else {
                 fullPassIrradiationRequest.updateCache();
                 doneEvent = Queues.offThread.enqueue(mainRunnable);
@@ -419,7 +1124,133 @@ public class FullPassReactorSimulation extends BaseReactorSimulation {
         
         @Override
         public boolean isAsync() {
-            return true;
+            return !inline;
+        }
+        
+        @Override
+        protected double irradiationCostNanos() {
+            if (inline) {
+                return super.irradiationCostNanos();
+            }
+            if (singleThread) {
+                return offThreadNanos;
+            }
+            // summed over every worker, which is what it takes away from the rest of the server
+            return rodCostPrefix[irradiatedRods];
+        }
+        
+        @Override
+        public DebugInfo getDebugInfo() {
+            final var info = super.getDebugInfo();
+            if (!singleThread) {
+                info.add(IrradiationScheduler.debugInfo());
+            }
+            return info;
+        }
+        
+        /**
+         * A range of control rods and Y levels, split in two by measured cost until it's small enough to be a leaf
+         * Rods are split first, a single rod is split into Y slabs, which coefficient fills can't use as they need the whole column
+         */
+        private class IrradiationTask extends RecursiveAction {
+            private final int baseRod;
+            private final int rodCount;
+            private final int kStart;
+            private final int kEnd;
+            
+            private double fuelRFAdded;
+            private double fuelRadAdded;
+            private double caseRFAdded;
+            
+            private IrradiationTask(int baseRod, int rodCount, int kStart, int kEnd) {
+                this.baseRod = baseRod;
+                this.rodCount = rodCount;
+                this.kStart = kStart;
+                this.kEnd = kEnd;
+            }
+            
+            @Override
+            protected void compute() {
+                final double cost = (rodCostPrefix[baseRod + rodCount] - rodCostPrefix[baseRod]) * (kEnd - kStart) / y;
+                if (cost > leafCost) {
+                    IrradiationTask left = null;
+                    IrradiationTask right = null;
+                    if (rodCount > 1) {
+                        final int splitRod = costMedian();
+                        left = new IrradiationTask(baseRod, splitRod - baseRod, kStart, kEnd);
+                        right = new IrradiationTask(splitRod, baseRod + rodCount - splitRod, kStart, kEnd);
+                    } else if (!coefficientFillPending && kEnd - kStart >= MIN_SLAB_HEIGHT * 2) {
+                        final int splitK = (kStart + kEnd) / 2;
+                        left = new IrradiationTask(baseRod, rodCount, kStart, splitK);
+                        right = new IrradiationTask(baseRod, rodCount, splitK, kEnd);
+                    }
+                    if (left != null) {
+                        invokeAll(left, right);
+                        fuelRFAdded = left.fuelRFAdded + right.fuelRFAdded;
+                        fuelRadAdded = left.fuelRadAdded + right.fuelRadAdded;
+                        caseRFAdded = left.caseRFAdded + right.caseRFAdded;
+                        return;
+                    }
+                }
+                
+                final var request = workerRequest();
+                final long startTime = System.nanoTime();
+                if (coefficientFillPending) {
+                    fillIrradiationCoefficients(request, baseRod, rodCount);
+                } else {
+                    irradiateRods(request, baseRod, rodCount, kStart, kEnd, initialHardness, fuelAbsorptionTemperatureCoefficient);
+                    fuelRFAdded = request.result.fuelRFAdded;
+                    fuelRadAdded = request.result.fuelRadAdded;
+                    caseRFAdded = request.result.caseRFAdded;
+                }
+                final long elapsed = System.nanoTime() - startTime;
+                
+                // only one slab per rod records, scaled up to the full column, and spread over the rods by their previous cost
+                if (kStart == 0) {
+                    final double columnTime = (double) elapsed * y / (kEnd - kStart);
+                    final double previousCost = rodCostPrefix[baseRod + rodCount] - rodCostPrefix[baseRod];
+                    for (int i = baseRod; i < baseRod + rodCount; i++) {
+                        rodCosts[i] = previousCost > 0 ? columnTime * rodCosts[i] / previousCost : columnTime / rodCount;
+                    }
+                }
+            }
+            
+            private int costMedian() {
+                final double target = (rodCostPrefix[baseRod] + rodCostPrefix[baseRod + rodCount]) * 0.5;
+                int low = baseRod + 1;
+                int high = baseRod + rodCount - 1;
+                while (low < high) {
+                    final int mid = (low + high) >>> 1;
+                    if (rodCostPrefix[mid] < target) {
+                        low = mid + 1;
+                    } else {
+                        high = mid;
+                    }
+                }
+                return low;
+            }
+            
+            private IrradiationRequest workerRequest() {
+                if (Thread.currentThread() instanceof ForkJoinWorkerThread workerThread) {
+                    final int index = workerThread.getPoolIndex();
+                    if (index < workerRequests.length) {
+                        var request = workerRequests[index];
+                        if (request == null) {
+                            request = newWorkerRequest();
+                            workerRequests[index] = request;
+                        }
+                        return request;
+                    }
+                }
+                // compensation threads can land outside of the expected range, rare enough to just allocate
+                return newWorkerRequest();
+            }
+            
+            private IrradiationRequest newWorkerRequest() {
+                final var request = new IrradiationRequest(0, controlRods.length, moderatorCacheArray, y);
+                request.copyCacheFrom(fullPassIrradiationRequest);
+                return request;
+            }
         }
     }
 }
@@ -0,0 +1,245 @@
+package net.roguelogix.biggerreactors.multiblocks.reactor.simulation.cpu;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.base.ModeratorCache;
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.base.SimUtil;
+
+/**
+ * Per control rod irradiation results, divided by the rod's initial intensity, tabulated over fuel temperature
+ * Everything absorbed along a ray is proportional to the intensity it starts with, so once control rod insertions and moderators are fixed
+ * the only thing left that changes the ray march is the fuel temperature, which is interpolated between grid points
+ * When patching is allowed, an insertion change keeps the grid points around the last temperature, for the simulation to patch the rays that cross the changed rods
+ */
+public class IrradiationCoefficientCache {
+    
+    public static final int STRIDE = 3;
+    public static final int FUEL_RF = 0;
+    public static final int FUEL_RAD = 1;
+    public static final int CASE_RF = 2;
+    
+    private final int controlRodCount;
+    private final double temperatureStep;
+    private final double moderatorTolerance;
+    private final boolean patchInsertions;
+    
+    private final double[] insertions;
+    // insertions the kept grid points were filled with, while there are changed rods to patch
+    private final double[] previousInsertions;
+    private final IntArrayList changedRods = new IntArrayList();
+    private final double[] moderatorValues;
+    private boolean valid = false;
+    
+    private final Int2ObjectOpenHashMap<double[]> gridPoints = new Int2ObjectOpenHashMap<>();
+    
+    private final ObjectArrayList<double[]> pendingPoints = new ObjectArrayList<>();
+    private final IntArrayList pendingIndices = new IntArrayList();
+    
+    private double[] lowerPoint;
+    private double[] upperPoint;
+    private double upperWeight;
+    private int lastLowerIndex = -1;
+    
+    public IrradiationCoefficientCache(int controlRodCount, int moderatorCount, double temperatureStep, double moderatorTolerance, boolean patchInsertions) {
+        this.controlRodCount = controlRodCount;
+        this.temperatureStep = temperatureStep;
+        this.moderatorTolerance = moderatorTolerance;
+        this.patchInsertions = patchInsertions;
+        insertions = new double[controlRodCount];
+        previousInsertions = new double[controlRodCount];
+        moderatorValues = new double[moderatorCount * 3];
+    }
+    
+    /**
+     * Drops every grid point if a control rod insertion changed, or a moderator drifted further than the tolerance from when the grid was started
+     * With patching allowed, an insertion change only drops the grid points away from the last temperature, and the changed rods are left for the caller to {@link #finishPatch patch}
+     * Moderator caches must already be updated for this tick
+     *
+     * @return false if the grid was dropped, the caller should do a normal pass instead of filling, so a reactor that changes every tick doesn't pay for grid points it never reuses
+     */
+    public boolean validate(SimUtil.ControlRod[] controlRods, ObjectArrayList<ModeratorCache> moderatorCaches) {
+        changedRods.clear();
+        boolean changed = !valid;
+        for (int i = 0; i < moderatorCaches.size() && !changed; i++) {
+            final var cache = moderatorCaches.get(i);
+            changed = moved(moderatorValues[i * 3], cache.absorption) || moved(moderatorValues[i * 3 + 1], cache.moderation) || moved(moderatorValues[i * 3 + 2], cache.heatEfficiency);
+        }
+        if (!changed && patchInsertions) {
+            for (int i = 0; i < controlRods.length; i++) {
+                if (insertions[i] != controlRods[i].insertion) {
+                    changedRods.add(i);
+                }
+            }
+            if (changedRods.isEmpty()) {
+                return true;
+            }
+            // only the cell the temperature was last in is likely to be used again soon, anything else isn't worth patching
+            gridPoints.int2ObjectEntrySet().removeIf(entry -> entry.getIntKey() != lastLowerIndex && entry.getIntKey() != lastLowerIndex + 1);
+            if (!gridPoints.isEmpty()) {
+                System.arraycopy(insertions, 0, previousInsertions, 0, controlRodCount);
+                for (int i = 0; i < changedRods.size(); i++) {
+                    final int rod = changedRods.getInt(i);
+                    insertions[rod] = controlRods[rod].insertion;
+                }
+                return true;
+            }
+            changedRods.clear();
+            changed = true;
+        }
+        for (int i = 0; i < controlRods.length && !changed; i++) {
+            changed = insertions[i] != controlRods[i].insertion;
+        }
+        if (!changed) {
+            return true;
+        }
+        for (int i = 0; i < controlRods.length; i++) {
+            insertions[i] = controlRods[i].insertion;
+        }
+        for (int i = 0; i < moderatorCaches.size(); i++) {
+            final var cache = moderatorCaches.get(i);
+            moderatorValues[i * 3] = cache.absorption;
+            moderatorValues[i * 3 + 1] = cache.moderation;
+            moderatorValues[i * 3 + 2] = cache.heatEfficiency;
+        }
+        gridPoints.clear();
+        valid = true;
+        return false;
+    }
+    
+    /**
+     * Drops every grid point, for changes validate can't see, like moderators moving around
+     */
+    public void invalidate() {
+        valid = false;
+        changedRods.clear();
+    }
+    
+    public int changedRodCount() {
+        return changedRods.size();
+    }
+    
+    public int changedRod(int i) {
+        return changedRods.getInt(i);
+    }
+    
+    /**
+     * Insertions every grid point was built with, before the changes from the last {@link #validate}
+     */
+    public double[] previousInsertions() {
+        return previousInsertions;
+    }
+    
+    /**
+     * Grid points kept by the last {@link #validate}, only meaningful while there are changed rods to patch
+     */
+    public int patchPointCount() {
+        return gridPoints.size();
+    }
+    
+    public double[] patchPoint(int i) {
+        return gridPoints.get(patchIndex(i));
+    }
+    
+    public double patchTemperature(int i) {
+        return patchIndex(i) * temperatureStep;
+    }
+    
+    private int patchIndex(int i) {
+        // at most the two grid points around the last temperature are kept
+        if (i == 0 && gridPoints.containsKey(lastLowerIndex)) {
+            return lastLowerIndex;
+        }
+        return lastLowerIndex + 1;
+    }
+    
+    /**
+     * Must be called once every kept grid point has been patched for the changed rods
+     */
+    public void finishPatch() {
+        changedRods.clear();
+    }
+    
+    private boolean moved(double cached, double current) {
+        return Math.abs(current - cached) > moderatorTolerance * Math.max(Math.abs(cached), Math.abs(current));
+    }
+    
+    /**
+     * Selects the grid points around the temperature, any that don't exist yet are allocated and queued to be filled before {@link #accumulate} can be called
+     *
+     * @return false if the caller should do a normal pass instead, when neither grid point exists and the temperature only just moved into the cell
+     */
+    public boolean prepare(double fuelTemperature) {
+        pendingPoints.clear();
+        pendingIndices.clear();
+        final double scaledTemperature = Math.max(0, fuelTemperature) / temperatureStep;
+        final int lowerIndex = (int) scaledTemperature;
+        final boolean enteredCell = lowerIndex != lastLowerIndex;
+        lastLowerIndex = lowerIndex;
+        if (enteredCell && !gridPoints.containsKey(lowerIndex) && !gridPoints.containsKey(lowerIndex + 1)) {
+            // filling costs twice a normal pass, not worth it if the temperature is just passing through
+            return false;
+        }
+        upperWeight = scaledTemperature - lowerIndex;
+        lowerPoint = gridPoint(lowerIndex);
+        upperPoint = gridPoint(lowerIndex + 1);
+        return true;
+    }
+    
+    private double[] gridPoint(int index) {
+        var point = gridPoints.get(index);
+        if (point == null) {
+            point = new double[controlRodCount * STRIDE];
+            pendingPoints.add(point);
+            pendingIndices.add(index);
+        }
+        return point;
+    }
+    
+    public int pendingCount() {
+        return pendingPoints.size();
+    }
+    
+    public double[] pendingPoint(int i) {
+        return pendingPoints.get(i);
+    }
+    
+    public double pendingTemperature(int i) {
+        return pendingIndices.getInt(i) * temperatureStep;
+    }
+    
+    /**
+     * Must be called once every pending point has been filled, from the thread that called {@link #prepare}
+     */
+    public void finishFill() {
+        for (int i = 0; i < pendingPoints.size(); i++) {
+            gridPoints.put(pendingIndices.getInt(i), pendingPoints.get(i));
+        }
+        pendingPoints.clear();
+        pendingIndices.clear();
+    }
+    
+    public void accumulate(double[] initialIntensities, FullPassReactorSimulation.IrradiationResult result) {
+        final double[] lowerPoint = this.lowerPoint;
+        final double[] upperPoint = this.upperPoint;
+        final double upperWeight = this.upperWeight;
+        final double lowerWeight = 1.0 - upperWeight;
+        double fuelRFAdded = 0;
+        double fuelRadAdded = 0;
+        double caseRFAdded = 0;
+        for (int i = 0; i < controlRodCount; i++) {
+            final int base = i * STRIDE;
+            final double intensity = initialIntensities[i];
+            fuelRFAdded += intensity * (lowerPoint[base + FUEL_RF] * lowerWeight + upperPoint[base + FUEL_RF] * upperWeight);
+            fuelRadAdded += intensity * (lowerPoint[base + FUEL_RAD] * lowerWeight + upperPoint[base + FUEL_RAD] * upperWeight);
+            caseRFAdded += intensity * (lowerPoint[base + CASE_RF] * lowerWeight + upperPoint[base + CASE_RF] * upperWeight);
+        }
+        result.fuelRFAdded += fuelRFAdded;
+        result.fuelRadAdded += fuelRadAdded;
+        result.caseRFAdded += caseRFAdded;
+    }
+    
+    public int gridPointCount() {
+        return gridPoints.size();
+    }
+}
@@ -0,0 +1,107 @@
+package net.roguelogix.biggerreactors.multiblocks.reactor.simulation.cpu;
+
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import net.roguelogix.biggerreactors.Config;
+import net.roguelogix.phosphophyllite.debug.DebugInfo;
+
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the irradiation work of every multi-threaded reactor over a server tick, and sends it to {@link IrradiationWorkers} all at once, most expensive first
+ * Dispatch is triggered at the end of the server tick, or by the first reactor that needs its result if nothing triggered it
+ */
+public class IrradiationScheduler {
+    
+    private static final ObjectArrayList<ScheduledTask> pending = new ObjectArrayList<>();
+    
+    private static volatile long lastRoundNanos = 0;
+    private static volatile int lastRoundTasks = 0;
+    private static final AtomicLong rounds = new AtomicLong();
+    private static final AtomicLong missedRounds = new AtomicLong();
+    private static final AtomicLong submissions = new AtomicLong();
+    
+    public static synchronized void submit(ForkJoinTask<?> task, double estimatedCost) {
+        pending.add(new ScheduledTask(task, estimatedCost));
+        submissions.incrementAndGet();
+    }
+    
+    /**
+     * Tasks submitted since startup, for measurements that need to know nothing else was using the workers
+     */
+    public static long submissions() {
+        return submissions.get();
+    }
+    
+    /**
+     * Sends all pending work to the worker pool, largest estimated cost first so the longest tasks don't start last
+     */
+    public static synchronized void dispatch() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        pending.sort((a, b) -> Double.compare(b.estimatedCost, a.estimatedCost));
+        final var round = new Round(pending.size());
+        final var pool = IrradiationWorkers.pool();
+        for (int i = 0; i < pending.size(); i++) {
+            final var task = pending.get(i);
+            task.round = round;
+            pool.execute(task);
+        }
+        pending.clear();
+    }
+    
+    public static DebugInfo debugInfo() {
+        final var info = new DebugInfo("IrradiationScheduler");
+        info.add("LastRoundTasks: " + lastRoundTasks);
+        info.add("LastRoundTime: " + lastRoundNanos / 1_000_000.0 + "ms");
+        info.add("MissedDeadlines: " + missedRounds.get() + "/" + rounds.get());
+        return info;
+    }
+    
+    private static class Round {
+        private final long startTime = System.nanoTime();
+        private final int tasks;
+        private final AtomicInteger remaining;
+        
+        private Round(int tasks) {
+            this.tasks = tasks;
+            remaining = new AtomicInteger(tasks);
+        }
+        
+        private void taskDone() {
+            if (remaining.decrementAndGet() != 0) {
+                return;
+            }
+            final long elapsed = System.nanoTime() - startTime;
+            lastRoundNanos = elapsed;
+            lastRoundTasks = tasks;
+            rounds.incrementAndGet();
+            if (elapsed > Config.CONFIG.Reactor.ModeSpecific.IrradiationDeadline * 1_000_000) {
+                missedRounds.incrementAndGet();
+            }
+        }
+    }
+    
+    private static class ScheduledTask extends RecursiveAction {
+        private final ForkJoinTask<?> task;
+        private final double estimatedCost;
+        private Round round;
+        
+        private ScheduledTask(ForkJoinTask<?> task, double estimatedCost) {
+            this.task = task;
+            this.estimatedCost = estimatedCost;
+        }
+        
+        @Override
+        protected void compute() {
+            try {
+                task.invoke();
+            } finally {
+                round.taskDone();
+            }
+        }
+    }
+}
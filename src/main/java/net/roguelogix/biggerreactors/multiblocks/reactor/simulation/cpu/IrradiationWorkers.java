@@ -0,0 +1,29 @@
+package net.roguelogix.biggerreactors.multiblocks.reactor.simulation.cpu;
+
+import net.roguelogix.biggerreactors.Config;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Fork join pool shared by every multi-threaded reactor simulation, so idle workers steal from whichever reactor has work left
+ */
+public class IrradiationWorkers {
+    
+    private static ForkJoinPool pool;
+    
+    public static synchronized ForkJoinPool pool() {
+        if (pool == null) {
+            int threads = Config.CONFIG.Reactor.ModeSpecific.IrradiationThreads;
+            if (threads <= 0) {
+                threads = Runtime.getRuntime().availableProcessors();
+            }
+            pool = new ForkJoinPool(threads, forkJoinPool -> {
+                final var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                thread.setName("BiggerReactors irradiation worker " + thread.getPoolIndex());
+                thread.setDaemon(true);
+                return thread;
+            }, null, false);
+        }
+        return pool;
+    }
+}
@@ -0,0 +1,202 @@
+package net.roguelogix.biggerreactors.multiblocks.reactor.simulation.cpu;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.SimulationDescription;
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.base.SimUtil;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+
+/**
+ * {@link SimUtil#rays} walked from every control rod of a reactor ahead of time, stored as flat primitive arrays
+ * Rays are cut off at the first step that leaves the reactor, so kernels can scan the steps without bounds checks
+ * Steps through columns of transparent moderators all the way up, like air, are left out, they leave a ray exactly as it was
+ * Each step keeps which step of the full ray it is, its Y offset and length are the same for every rod
+ */
+public class RayTable {
+    
+    // steps of every ray in SimUtil.rays, ray i's are [rayFirstStep[i], rayFirstStep[i + 1])
+    public static final int[] rayFirstStep;
+    public static final int[] rayStepOffsetY;
+    public static final double[] rayStepLengths;
+    
+    static {
+        rayFirstStep = new int[SimUtil.rays.size() + 1];
+        for (int i = 0; i < SimUtil.rays.size(); i++) {
+            rayFirstStep[i + 1] = rayFirstStep[i] + SimUtil.rays.get(i).size();
+        }
+        rayStepOffsetY = new int[rayFirstStep[SimUtil.rays.size()]];
+        rayStepLengths = new double[rayStepOffsetY.length];
+        for (int i = 0; i < SimUtil.rays.size(); i++) {
+            final var raySteps = SimUtil.rays.get(i);
+            for (int j = 0; j < raySteps.size(); j++) {
+                rayStepOffsetY[rayFirstStep[i] + j] = raySteps.get(j).offset.y;
+                rayStepLengths[rayFirstStep[i] + j] = raySteps.get(j).length;
+            }
+        }
+    }
+    
+    public final int rayCount;
+    
+    // indexed by rod * rayCount + ray, steps of that ray are [rayStepBase[i], rayStepBase[i + 1])
+    // rods are laid out in order, so the steps for a contiguous range of rods are contiguous too
+    public final int[] rayStepBase;
+    // linear moderator index of the bottom of the column the step is in, or ~controlRodIndex if the column is a control rod
+    public final int[] stepColumns;
+    // index into rayStepOffsetY and rayStepLengths
+    public final int[] stepRaySteps;
+    // indexed by x * z + z
+    private final boolean[] skippedColumns;
+    public final long skippedSteps;
+    @Nullable
+    private int[][] crossingRays;
+    
+    /**
+     * Keeps every step, no column is left out
+     */
+    public RayTable(SimUtil.ControlRod[] controlRods, int x, int y, int z) {
+        this(controlRods, x, y, z, null, null);
+    }
+    
+    /**
+     * @param transparentSlots moderator slots that absorb nothing and have a moderation of 1, indexed by moderator index
+     */
+    public RayTable(SimUtil.ControlRod[] controlRods, int x, int y, int z, @Nullable byte[] moderatorIndices, @Nullable boolean[] transparentSlots) {
+        rayCount = SimUtil.rays.size();
+        
+        final int[] columnControlRods = new int[x * z];
+        for (int i = 0; i < columnControlRods.length; i++) {
+            columnControlRods[i] = -1;
+        }
+        for (int i = 0; i < controlRods.length; i++) {
+            columnControlRods[controlRods[i].x * z + controlRods[i].z] = i;
+        }
+        
+        skippedColumns = new boolean[x * z];
+        for (int i = 0; i < skippedColumns.length && transparentSlots != null; i++) {
+            if (columnControlRods[i] != -1) {
+                continue;
+            }
+            boolean transparent = true;
+            for (int j = i * y; j < (i + 1) * y && transparent; j++) {
+                transparent = transparentSlots[moderatorIndices[j]];
+            }
+            skippedColumns[i] = transparent;
+        }
+        
+        rayStepBase = new int[controlRods.length * rayCount + 1];
+        int totalSteps = 0;
+        long skippedSteps = 0;
+        for (int i = 0; i < controlRods.length; i++) {
+            final var controlRod = controlRods[i];
+            for (int j = 0; j < rayCount; j++) {
+                final var raySteps = SimUtil.rays.get(j);
+                rayStepBase[i * rayCount + j] = totalSteps;
+                final int steps = clippedLength(raySteps, controlRod.x, controlRod.z, x, z);
+                for (int k = 0; k < steps; k++) {
+                    final var offset = raySteps.get(k).offset;
+                    if (skippedColumns[(controlRod.x + offset.x) * z + controlRod.z + offset.z]) {
+                        skippedSteps++;
+                    } else {
+                        totalSteps++;
+                    }
+                }
+            }
+        }
+        rayStepBase[controlRods.length * rayCount] = totalSteps;
+        this.skippedSteps = skippedSteps;
+        
+        stepColumns = new int[totalSteps];
+        stepRaySteps = new int[totalSteps];
+        
+        int currentStep = 0;
+        for (final SimUtil.ControlRod controlRod : controlRods) {
+            for (int j = 0; j < rayCount; j++) {
+                final var raySteps = SimUtil.rays.get(j);
+                final int steps = clippedLength(raySteps, controlRod.x, controlRod.z, x, z);
+                for (int k = 0; k < steps; k++) {
+                    final var step = raySteps.get(k);
+                    final int currentX = controlRod.x + step.offset.x;
+                    final int currentZ = controlRod.z + step.offset.z;
+                    if (skippedColumns[currentX * z + currentZ]) {
+                        continue;
+                    }
+                    final int columnControlRod = columnControlRods[currentX * z + currentZ];
+                    stepColumns[currentStep] = columnControlRod == -1 ? ((currentX * z) + currentZ) * y : ~columnControlRod;
+                    stepRaySteps[currentStep] = rayFirstStep[j] + k;
+                    currentStep++;
+                }
+            }
+        }
+    }
+    
+    /**
+     * For each control rod, every ray (as rod * rayCount + ray) with a step through its column, each ray once
+     * Built the first time it's asked for, only reactors that change some of their insertions on their own need it
+     */
+    public synchronized int[][] crossingRays() {
+        if (crossingRays == null) {
+            final int controlRodCount = (rayStepBase.length - 1) / rayCount;
+            final var rays = new IntArrayList[controlRodCount];
+            for (int i = 0; i < controlRodCount; i++) {
+                rays[i] = new IntArrayList();
+            }
+            for (int i = 0; i < controlRodCount * rayCount; i++) {
+                for (int j = rayStepBase[i]; j < rayStepBase[i + 1]; j++) {
+                    if (stepColumns[j] >= 0) {
+                        continue;
+                    }
+                    final var crossedRodRays = rays[~stepColumns[j]];
+                    // rays are walked in order, so a ray crossing a column more than once is always the last one added
+                    if (crossedRodRays.isEmpty() || crossedRodRays.getInt(crossedRodRays.size() - 1) != i) {
+                        crossedRodRays.add(i);
+                    }
+                }
+            }
+            crossingRays = new int[controlRodCount][];
+            for (int i = 0; i < controlRodCount; i++) {
+                crossingRays[i] = rays[i].toIntArray();
+            }
+        }
+        return crossingRays;
+    }
+    
+    /**
+     * If steps through the column at x * z + z were left out, it has to stay transparent all the way up for the table to be right
+     */
+    public boolean skipsColumn(int column) {
+        return skippedColumns[column];
+    }
+    
+    /**
+     * How many steps a table built for this description would have at most, before transparent columns are left out, without building it
+     */
+    public static long stepCount(SimulationDescription description) {
+        final int x = description.x();
+        final int z = description.z();
+        long steps = 0;
+        for (int i = 0; i < x; i++) {
+            for (int j = 0; j < z; j++) {
+                if (!description.isControlRodAt(i, j)) {
+                    continue;
+                }
+                for (final var raySteps : SimUtil.rays) {
+                    steps += clippedLength(raySteps, i, j, x, z);
+                }
+            }
+        }
+        return steps;
+    }
+    
+    private static int clippedLength(ArrayList<SimUtil.RayStep> raySteps, int rodX, int rodZ, int x, int z) {
+        for (int i = 0; i < raySteps.size(); i++) {
+            final var step = raySteps.get(i);
+            final int currentX = rodX + step.offset.x;
+            final int currentZ = rodZ + step.offset.z;
+            if (currentX < 0 || currentX >= x || currentZ < 0 || currentZ >= z) {
+                return i;
+            }
+        }
+        return raySteps.size();
+    }
+}
@@ -0,0 +1,147 @@
+package net.roguelogix.biggerreactors.multiblocks.reactor.simulation.cpu;
+
+import net.roguelogix.biggerreactors.Config;
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.SimulationConfiguration;
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.SimulationDescription;
+import net.roguelogix.biggerreactors.registries.ReactorModeratorRegistry;
+import net.roguelogix.phosphophyllite.debug.DebugInfo;
+
+/**
+ * Irradiates a subset of the (control rod, ray) pairs each tick, within a fixed amount of work, and keeps a running estimate of the full pass result
+ * Pairs are visited in a golden ratio strided order, so each tick's sample is spread over the reactor, and every pair is visited once per cycle
+ * Samples are normalized by the total emitted intensity before being averaged, so intensity changes show up immediately, only the absorption lags
+ */
+public class StochasticReactorSimulation extends FullPassReactorSimulation {
+    
+    private static final double GOLDEN_RATIO_FRACTION = 0.6180339887498949;
+    
+    private final int pairCount;
+    private final int pairStride;
+    private final int samplesPerTick;
+    private final double averagingFactor;
+    private int nextPair = 0;
+    
+    private boolean estimateValid = false;
+    private double fuelRFEstimate;
+    private double fuelRadEstimate;
+    private double caseRFEstimate;
+    
+    public StochasticReactorSimulation(SimulationDescription simulationDescription, SimulationConfiguration configuration) {
+        super(simulationDescription, configuration);
+        pairCount = controlRods.length * rayTable.rayCount;
+        
+        int stride = Math.max(1, (int) Math.round(pairCount * GOLDEN_RATIO_FRACTION));
+        while (gcd(stride, pairCount) != 1) {
+            stride++;
+        }
+        pairStride = stride % pairCount;
+        
+        // rays are clipped to the reactor, so the average over this reactor's pairs is the cost of a sample
+        final double averagePairCost = Math.max(1.0, (double) rayTable.rayStepBase[pairCount] / pairCount) * y;
+        final long budget = Config.CONFIG.Reactor.ModeSpecific.StochasticSampleBudget;
+        samplesPerTick = (int) Math.max(1, Math.min(pairCount, budget / averagePairCost));
+        averagingFactor = 1.0 / Config.CONFIG.Reactor.ModeSpecific.StochasticAveragingTicks;
+    }
+    
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            final int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+    
+    @Override
+    protected boolean replaceModerator(int x, int y, int z, ReactorModeratorRegistry.IModeratorProperties properties) {
+        if (!super.replaceModerator(x, y, z, properties)) {
+            return false;
+        }
+        // samples of the old layout would take a while to average out
+        estimateValid = false;
+        return true;
+    }
+    
+    @Override
+    protected boolean allowSteadyStateReuse() {
+        // each tick only samples some pairs and moves the average, reusing a tick would stall both
+        return false;
+    }
+    
+    @Override
+    protected double radiate() {
+        if (fuelTank.fuel() <= 0) {
+            return 0;
+        }
+        
+        setupIrradiationTick();
+        fullPassIrradiationRequest.updateCache();
+        
+        double totalIntensity = 0;
+        for (int i = 0; i < controlRods.length; i++) {
+            totalIntensity += initialIntensties[i];
+        }
+        
+        if (samplesPerTick >= pairCount) {
+            // the budget covers the whole reactor, nothing to estimate
+            runIrradiationRequest(fullPassIrradiationRequest);
+            collectIrradiationResult(fullPassIrradiationRequest.result);
+            return realizeIrradiationTick();
+        }
+        
+        final var result = fullPassIrradiationRequest.result;
+        double sampleFuelRFAdded = 0;
+        double sampleFuelRadAdded = 0;
+        double sampleCaseRFAdded = 0;
+        final int rayCount = rayTable.rayCount;
+        int pair = nextPair;
+        for (int i = 0; i < samplesPerTick; i++) {
+            final int rod = pair / rayCount;
+            irradiateRay(fullPassIrradiationRequest, rod, pair % rayCount, controlRodInsertions, initialIntensties[rod] * rayMultiplier, initialHardness, fuelAbsorptionTemperatureCoefficient);
+            sampleFuelRFAdded += result.fuelRFAdded;
+            sampleFuelRadAdded += result.fuelRadAdded;
+            sampleCaseRFAdded += result.caseRFAdded;
+            pair += pairStride;
+            if (pair >= pairCount) {
+                pair -= pairCount;
+            }
+        }
+        nextPair = pair;
+        result.fuelRFAdded = 0;
+        result.fuelRadAdded = 0;
+        result.caseRFAdded = 0;
+        
+        if (totalIntensity > 0) {
+            // every pair is equally likely to be sampled, so the weight is the inverse of the fraction sampled
+            final double scale = (double) pairCount / samplesPerTick / totalIntensity;
+            final double fuelRFSample = sampleFuelRFAdded * scale;
+            final double fuelRadSample = sampleFuelRadAdded * scale;
+            final double caseRFSample = sampleCaseRFAdded * scale;
+            if (!estimateValid) {
+                fuelRFEstimate = fuelRFSample;
+                fuelRadEstimate = fuelRadSample;
+                caseRFEstimate = caseRFSample;
+                estimateValid = true;
+            } else {
+                fuelRFEstimate += (fuelRFSample - fuelRFEstimate) * averagingFactor;
+                fuelRadEstimate += (fuelRadSample - fuelRadEstimate) * averagingFactor;
+                caseRFEstimate += (caseRFSample - caseRFEstimate) * averagingFactor;
+            }
+            result.fuelRFAdded = fuelRFEstimate * totalIntensity;
+            result.fuelRadAdded = fuelRadEstimate * totalIntensity;
+            result.caseRFAdded = caseRFEstimate * totalIntensity;
+            collectIrradiationResult(result);
+        }
+        return realizeIrradiationTick();
+    }
+    
+    @Override
+    public DebugInfo getDebugInfo() {
+        final var info = super.getDebugInfo();
+        final var stochasticInfo = new DebugInfo("StochasticSampling");
+        stochasticInfo.add("SamplesPerTick: " + samplesPerTick + "/" + pairCount);
+        stochasticInfo.add("CycleTicks: " + (pairCount + samplesPerTick - 1) / samplesPerTick);
+        info.add(stochasticInfo);
+        return info;
+    }
+}
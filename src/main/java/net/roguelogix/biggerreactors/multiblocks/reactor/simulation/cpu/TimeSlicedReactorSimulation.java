@@ -21,6 +21,18 @@ public class TimeSlicedReactorSimulation extends BaseReactorSimulation {
         Collections.shuffle(Arrays.asList(controlRods), new Random());
     }
     
+    @Override
+    protected boolean replaceModerator(int x, int y, int z, ReactorModeratorRegistry.IModeratorProperties properties) {
+        // reads moderatorAt directly
+        return true;
+    }
+    
+    @Override
+    protected boolean allowSteadyStateReuse() {
+        // each tick only irradiates a single rod and y level, the last one isn't representative
+        return false;
+    }
+    
     protected double radiate() {
         
         if (fuelTank.fuel() <= 0) {
@@ -102,7 +114,7 @@ public class TimeSlicedReactorSimulation extends BaseReactorSimulation {
                             currentZ < 0 || currentZ >= this.z) {
                     break;
                 }
-                ReactorModeratorRegistry.IModeratorProperties properties = moderatorProperties[currentX][currentY][currentZ];
+                ReactorModeratorRegistry.IModeratorProperties properties = moderatorAt(currentX, currentY, currentZ);
                 if (properties != null) {
                     final double radiationAbsorbed = neutronIntensity * properties.absorption() * (1f - neutronHardness) * rayStep.length;
                     neutronIntensity = Math.max(0, neutronIntensity - radiationAbsorbed);
@@ -143,18 +155,7 @@ public class TimeSlicedReactorSimulation extends BaseReactorSimulation {
             }
         }
         
-        if (!Double.isNaN(fuelRadAdded)) {
-            if (configuration.fuelRadScalingMultiplier() != 0) {
-                fuelRadAdded *= configuration.fuelRadScalingMultiplier() * (configuration.fuelRodFuelCapacity() / Math.max(1.0, (double) fuelTank().totalStored()));
-            }
-            fuelFertility += fuelRadAdded;
-        }
-        if (!Double.isNaN(fuelRFAdded)) {
-            fuelHeat.absorbRF(fuelRFAdded);
-        }
-        if (!Double.isNaN(caseRFAdded)) {
-            stackHeat.absorbRF(caseRFAdded);
-        }
+        absorbIrradiation(fuelRFAdded, fuelRadAdded, caseRFAdded);
         return rawFuelUsage;
     }
 }
@@ -0,0 +1,327 @@
+package net.roguelogix.biggerreactors.multiblocks.reactor.simulation.cpu;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.SimulationConfiguration;
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.SimulationDescription;
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.base.SimUtil;
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.base.SimulationTables;
+
+/**
+ * Same irradiation as {@link FullPassReactorSimulation}, but each ray step processes the Y column of the reactor in vector lanes
+ * Only safe to classload if {@link SimUtil#vectorAPIAvailable} is true
+ */
+public class VectorizedReactorSimulation extends FullPassReactorSimulation.MultiThreaded {
+    
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float> FLOAT_SPECIES = FloatVector.SPECIES_PREFERRED;
+    
+    // gathers need int indices, so this duplicates the byte array, padded past the last column for masked tails
+    // shared through the simulation tables until a moderator is swapped, then copied
+    private int[] moderatorIndicesInt;
+    private boolean moderatorIndicesIntShared = true;
+    
+    public VectorizedReactorSimulation(SimulationDescription simulationDescription, SimulationConfiguration configuration, boolean singleThread) {
+        this(simulationDescription, configuration, singleThread, false);
+    }
+    
+    public VectorizedReactorSimulation(SimulationDescription simulationDescription, SimulationConfiguration configuration, boolean singleThread, boolean singlePrecision) {
+        this(simulationDescription, configuration, singleThread, singlePrecision, false);
+    }
+    
+    public VectorizedReactorSimulation(SimulationDescription simulationDescription, SimulationConfiguration configuration, boolean singleThread, boolean singlePrecision, boolean inline) {
+        super(simulationDescription, configuration, singleThread, singlePrecision, inline);
+        moderatorIndicesInt = tables.gatherModeratorIndices();
+        assert FLOAT_SPECIES.length() <= SimulationTables.GATHER_PADDING;
+    }
+    
+    @Override
+    protected void setModeratorIndex(int moderatorIndexIndex, byte moderatorIndex) {
+        super.setModeratorIndex(moderatorIndexIndex, moderatorIndex);
+        if (moderatorIndicesIntShared) {
+            moderatorIndicesInt = moderatorIndicesInt.clone();
+            moderatorIndicesIntShared = false;
+        }
+        moderatorIndicesInt[moderatorIndexIndex] = moderatorIndex;
+    }
+    
+    @Override
+    protected void irradiate(IrradiationRequest request, int baseControlRod, int controlRodCount, int kStart, int kEnd, double[] insertions, double initialHardness, double fuelAbsorptionTemperatureCoefficient) {
+        if (singlePrecision) {
+            irradiateSinglePrecision(request, baseControlRod, controlRodCount, kStart, kEnd, insertions, (float) initialHardness, (float) fuelAbsorptionTemperatureCoefficient);
+            return;
+        }
+        if (kEnd - kStart < SPECIES.length()) {
+            // not even one full vector of levels, like the single interior levels of uniform rods, a lone masked vector does more work than the scalar loop
+            super.irradiate(request, baseControlRod, controlRodCount, kStart, kEnd, insertions, initialHardness, fuelAbsorptionTemperatureCoefficient);
+            return;
+        }
+        final double FuelAbsorptionCoefficient = this.FuelAbsorptionCoefficient;
+        final double FuelModerationFactor = this.FuelModerationFactor;
+        final double fuelHardnessMultiplier = this.fuelHardnessMultiplier;
+        final double rayMultiplier = this.rayMultiplier;
+        final int[] moderatorIndicesInt = this.moderatorIndicesInt;
+        final double[] stepAbsorptions = request.stepAbsorptions;
+        final double[] stepHardnessFactors = request.stepHardnessFactors;
+        final double[] heatEfficiencies = request.heatEfficiencies;
+        final int moderatorCount = heatEfficiencies.length;
+        final double[] intensities = request.intensities;
+        final double[] hardnesses = request.hardnesses;
+        final int laneCount = SPECIES.length();
+        
+        var fuelRFAdded = DoubleVector.zero(SPECIES);
+        var fuelRadAdded = DoubleVector.zero(SPECIES);
+        var caseRFAdded = DoubleVector.zero(SPECIES);
+        
+        final int rayCount = rayTable.rayCount;
+        final int[] rayStepBase = rayTable.rayStepBase;
+        final int[] stepColumns = rayTable.stepColumns;
+        final int[] stepRaySteps = rayTable.stepRaySteps;
+        final int[] rayStepOffsetY = RayTable.rayStepOffsetY;
+        final double[] rayStepLengths = RayTable.rayStepLengths;
+        
+        for (int cro = 0; cro < controlRodCount; cro++) {
+            final int cri = cro + baseControlRod;
+            final var initialIntensity = initialIntensties[cri] * rayMultiplier;
+            for (int i = 0; i < rayCount; i++) {
+                for (int j = kStart; j < kEnd; j++) {
+                    intensities[j] = initialIntensity;
+                    hardnesses[j] = initialHardness;
+                }
+                final int rayIndex = cri * rayCount + i;
+                final int stepsEnd = rayStepBase[rayIndex + 1];
+                for (int j = rayStepBase[rayIndex]; j < stepsEnd; j++) {
+                    final int column = stepColumns[j];
+                    final int rayStep = stepRaySteps[j];
+                    final int offsetY = rayStepOffsetY[rayStep];
+                    // only the part of the slab that the offset Y keeps inside the reactor is processed, full vectors first then one masked tail
+                    final int startK = Math.max(kStart, -offsetY);
+                    final int endK = Math.min(kEnd, y - offsetY);
+                    final double stepLength = rayStepLengths[rayStep];
+                    if (column >= 0) {
+                        final int recordBase = rayStep * moderatorCount;
+                        int k = startK;
+                        for (; k <= endK - laneCount; k += laneCount) {
+                            final int mapOffset = column + k + offsetY;
+                            final var neutronIntensity = DoubleVector.fromArray(SPECIES, intensities, k);
+                            final var neutronHardness = DoubleVector.fromArray(SPECIES, hardnesses, k);
+                            final var stepAbsorption = DoubleVector.fromArray(SPECIES, stepAbsorptions, recordBase, moderatorIndicesInt, mapOffset);
+                            final var stepHardnessFactor = DoubleVector.fromArray(SPECIES, stepHardnessFactors, recordBase, moderatorIndicesInt, mapOffset);
+                            final var heatEfficiency = DoubleVector.fromArray(SPECIES, heatEfficiencies, 0, moderatorIndicesInt, mapOffset);
+                            
+                            final var radiationAbsorbed = neutronIntensity.mul(neutronHardness.neg().add(1.0)).mul(stepAbsorption);
+                            neutronIntensity.sub(radiationAbsorbed).max(0.0).intoArray(intensities, k);
+                            neutronHardness.mul(stepHardnessFactor).intoArray(hardnesses, k);
+                            caseRFAdded = caseRFAdded.add(heatEfficiency.mul(radiationAbsorbed));
+                        }
+                        if (k < endK) {
+                            final VectorMask<Double> mask = SPECIES.indexInRange(k, endK);
+                            final int mapOffset = column + k + offsetY;
+                            final var neutronIntensity = DoubleVector.fromArray(SPECIES, intensities, k, mask);
+                            final var neutronHardness = DoubleVector.fromArray(SPECIES, hardnesses, k, mask);
+                            final var stepAbsorption = DoubleVector.fromArray(SPECIES, stepAbsorptions, recordBase, moderatorIndicesInt, mapOffset, mask);
+                            final var stepHardnessFactor = DoubleVector.fromArray(SPECIES, stepHardnessFactors, recordBase, moderatorIndicesInt, mapOffset, mask);
+                            final var heatEfficiency = DoubleVector.fromArray(SPECIES, heatEfficiencies, 0, moderatorIndicesInt, mapOffset, mask);
+                            
+                            final var radiationAbsorbed = neutronIntensity.mul(neutronHardness.neg().add(1.0)).mul(stepAbsorption);
+                            neutronIntensity.sub(radiationAbsorbed).max(0.0).intoArray(intensities, k, mask);
+                            neutronHardness.mul(stepHardnessFactor).intoArray(hardnesses, k, mask);
+                            caseRFAdded = caseRFAdded.add(heatEfficiency.mul(radiationAbsorbed), mask);
+                        }
+                    } else {
+                        // Scale control rod insertion 0..1
+                        final double controlRodInsertion = insertions[~column] * .001;
+                        final double halfRodInsertion = controlRodInsertion * 0.5;
+                        // Full insertion doubles the moderation factor of the fuel as well as adding its own level
+                        final double fuelModerationFactor = FuelModerationFactor + (FuelModerationFactor * controlRodInsertion + controlRodInsertion);
+                        final double hardnessMultiplier = 1.0 / (((fuelModerationFactor - 1.0) * stepLength) + 1.0);
+                        final double stepFuelAbsorptionCoefficient = FuelAbsorptionCoefficient * stepLength;
+                        
+                        int k = startK;
+                        for (; k <= endK - laneCount; k += laneCount) {
+                            final var neutronIntensity = DoubleVector.fromArray(SPECIES, intensities, k);
+                            final var neutronHardness = DoubleVector.fromArray(SPECIES, hardnesses, k);
+                            
+                            final var baseAbsorption = neutronHardness.mul(-fuelHardnessMultiplier).add(1.0).mul(fuelAbsorptionTemperatureCoefficient);
+                            final var scaledAbsorption = baseAbsorption.mul(stepFuelAbsorptionCoefficient);
+                            final var controlRodBonus = scaledAbsorption.neg().add(1.0).mul(halfRodInsertion);
+                            final var controlRodPenalty = scaledAbsorption.mul(halfRodInsertion);
+                            
+                            final var radiationAbsorbed = scaledAbsorption.add(controlRodBonus).mul(neutronIntensity);
+                            final var fertilityAbsorbed = scaledAbsorption.sub(controlRodPenalty).mul(neutronIntensity);
+                            
+                            neutronIntensity.sub(radiationAbsorbed).max(0.0).intoArray(intensities, k);
+                            neutronHardness.mul(hardnessMultiplier).intoArray(hardnesses, k);
+                            fuelRFAdded = fuelRFAdded.add(radiationAbsorbed);
+                            fuelRadAdded = fuelRadAdded.add(fertilityAbsorbed);
+                        }
+                        if (k < endK) {
+                            final VectorMask<Double> mask = SPECIES.indexInRange(k, endK);
+                            final var neutronIntensity = DoubleVector.fromArray(SPECIES, intensities, k, mask);
+                            final var neutronHardness = DoubleVector.fromArray(SPECIES, hardnesses, k, mask);
+                            
+                            final var baseAbsorption = neutronHardness.mul(-fuelHardnessMultiplier).add(1.0).mul(fuelAbsorptionTemperatureCoefficient);
+                            final var scaledAbsorption = baseAbsorption.mul(stepFuelAbsorptionCoefficient);
+                            final var controlRodBonus = scaledAbsorption.neg().add(1.0).mul(halfRodInsertion);
+                            final var controlRodPenalty = scaledAbsorption.mul(halfRodInsertion);
+                            
+                            final var radiationAbsorbed = scaledAbsorption.add(controlRodBonus).mul(neutronIntensity);
+                            final var fertilityAbsorbed = scaledAbsorption.sub(controlRodPenalty).mul(neutronIntensity);
+                            
+                            neutronIntensity.sub(radiationAbsorbed).max(0.0).intoArray(intensities, k, mask);
+                            neutronHardness.mul(hardnessMultiplier).intoArray(hardnesses, k, mask);
+                            fuelRFAdded = fuelRFAdded.add(radiationAbsorbed, mask);
+                            fuelRadAdded = fuelRadAdded.add(fertilityAbsorbed, mask);
+                        }
+                    }
+                }
+            }
+        }
+        request.result.fuelRFAdded = fuelRFAdded.reduceLanes(VectorOperators.ADD);
+        request.result.fuelRadAdded = fuelRadAdded.reduceLanes(VectorOperators.ADD);
+        request.result.caseRFAdded = caseRFAdded.reduceLanes(VectorOperators.ADD);
+    }
+    
+    /**
+     * Float version of the above, twice the lanes per vector
+     * Each ray's lanes are reduced on their own and the ray sums are added up with {@link CompensatedSum}
+     */
+    @Override
+    protected void irradiateSinglePrecision(IrradiationRequest request, int baseControlRod, int controlRodCount, int kStart, int kEnd, double[] insertions, float initialHardness, float fuelAbsorptionTemperatureCoefficient) {
+        if (kEnd - kStart < FLOAT_SPECIES.length()) {
+            // same as above, too few levels to be worth a masked vector
+            super.irradiateSinglePrecision(request, baseControlRod, controlRodCount, kStart, kEnd, insertions, initialHardness, fuelAbsorptionTemperatureCoefficient);
+            return;
+        }
+        final float FuelAbsorptionCoefficient = (float) this.FuelAbsorptionCoefficient;
+        final float FuelModerationFactor = (float) this.FuelModerationFactor;
+        final float fuelHardnessMultiplier = (float) this.fuelHardnessMultiplier;
+        final double rayMultiplier = this.rayMultiplier;
+        final int[] moderatorIndicesInt = this.moderatorIndicesInt;
+        final float[] stepAbsorptions = request.floatStepAbsorptions;
+        final float[] stepHardnessFactors = request.floatStepHardnessFactors;
+        final float[] heatEfficiencies = request.floatHeatEfficiencies;
+        final int moderatorCount = heatEfficiencies.length;
+        final float[] intensities = request.floatIntensities;
+        final float[] hardnesses = request.floatHardnesses;
+        final int laneCount = FLOAT_SPECIES.length();
+        
+        final var fuelRFAdded = new CompensatedSum();
+        final var fuelRadAdded = new CompensatedSum();
+        final var caseRFAdded = new CompensatedSum();
+        
+        final int rayCount = rayTable.rayCount;
+        final int[] rayStepBase = rayTable.rayStepBase;
+        final int[] stepColumns = rayTable.stepColumns;
+        final int[] stepRaySteps = rayTable.stepRaySteps;
+        final int[] rayStepOffsetY = RayTable.rayStepOffsetY;
+        final double[] rayStepLengths = RayTable.rayStepLengths;
+        
+        for (int cro = 0; cro < controlRodCount; cro++) {
+            final int cri = cro + baseControlRod;
+            final float initialIntensity = (float) (initialIntensties[cri] * rayMultiplier);
+            for (int i = 0; i < rayCount; i++) {
+                for (int j = kStart; j < kEnd; j++) {
+                    intensities[j] = initialIntensity;
+                    hardnesses[j] = initialHardness;
+                }
+                var rayFuelRFAdded = FloatVector.zero(FLOAT_SPECIES);
+                var rayFuelRadAdded = FloatVector.zero(FLOAT_SPECIES);
+                var rayCaseRFAdded = FloatVector.zero(FLOAT_SPECIES);
+                final int rayIndex = cri * rayCount + i;
+                final int stepsEnd = rayStepBase[rayIndex + 1];
+                for (int j = rayStepBase[rayIndex]; j < stepsEnd; j++) {
+                    final int column = stepColumns[j];
+                    final int rayStep = stepRaySteps[j];
+                    final int offsetY = rayStepOffsetY[rayStep];
+                    final int startK = Math.max(kStart, -offsetY);
+                    final int endK = Math.min(kEnd, y - offsetY);
+                    final float stepLength = (float) rayStepLengths[rayStep];
+                    if (column >= 0) {
+                        final int recordBase = rayStep * moderatorCount;
+                        int k = startK;
+                        for (; k <= endK - laneCount; k += laneCount) {
+                            final int mapOffset = column + k + offsetY;
+                            final var neutronIntensity = FloatVector.fromArray(FLOAT_SPECIES, intensities, k);
+                            final var neutronHardness = FloatVector.fromArray(FLOAT_SPECIES, hardnesses, k);
+                            final var stepAbsorption = FloatVector.fromArray(FLOAT_SPECIES, stepAbsorptions, recordBase, moderatorIndicesInt, mapOffset);
+                            final var stepHardnessFactor = FloatVector.fromArray(FLOAT_SPECIES, stepHardnessFactors, recordBase, moderatorIndicesInt, mapOffset);
+                            final var heatEfficiency = FloatVector.fromArray(FLOAT_SPECIES, heatEfficiencies, 0, moderatorIndicesInt, mapOffset);
+                            
+                            final var radiationAbsorbed = neutronIntensity.mul(neutronHardness.neg().add(1.0f)).mul(stepAbsorption);
+                            neutronIntensity.sub(radiationAbsorbed).max(0.0f).intoArray(intensities, k);
+                            neutronHardness.mul(stepHardnessFactor).intoArray(hardnesses, k);
+                            rayCaseRFAdded = rayCaseRFAdded.add(heatEfficiency.mul(radiationAbsorbed));
+                        }
+                        if (k < endK) {
+                            final VectorMask<Float> mask = FLOAT_SPECIES.indexInRange(k, endK);
+                            final int mapOffset = column + k + offsetY;
+                            final var neutronIntensity = FloatVector.fromArray(FLOAT_SPECIES, intensities, k, mask);
+                            final var neutronHardness = FloatVector.fromArray(FLOAT_SPECIES, hardnesses, k, mask);
+                            final var stepAbsorption = FloatVector.fromArray(FLOAT_SPECIES, stepAbsorptions, recordBase, moderatorIndicesInt, mapOffset, mask);
+                            final var stepHardnessFactor = FloatVector.fromArray(FLOAT_SPECIES, stepHardnessFactors, recordBase, moderatorIndicesInt, mapOffset, mask);
+                            final var heatEfficiency = FloatVector.fromArray(FLOAT_SPECIES, heatEfficiencies, 0, moderatorIndicesInt, mapOffset, mask);
+                            
+                            final var radiationAbsorbed = neutronIntensity.mul(neutronHardness.neg().add(1.0f)).mul(stepAbsorption);
+                            neutronIntensity.sub(radiationAbsorbed).max(0.0f).intoArray(intensities, k, mask);
+                            neutronHardness.mul(stepHardnessFactor).intoArray(hardnesses, k, mask);
+                            rayCaseRFAdded = rayCaseRFAdded.add(heatEfficiency.mul(radiationAbsorbed), mask);
+                        }
+                    } else {
+                        final float controlRodInsertion = (float) (insertions[~column] * .001);
+                        final float halfRodInsertion = controlRodInsertion * 0.5f;
+                        final float fuelModerationFactor = FuelModerationFactor + (FuelModerationFactor * controlRodInsertion + controlRodInsertion);
+                        final float hardnessMultiplier = 1.0f / (((fuelModerationFactor - 1.0f) * stepLength) + 1.0f);
+                        final float stepFuelAbsorptionCoefficient = FuelAbsorptionCoefficient * stepLength;
+                        
+                        int k = startK;
+                        for (; k <= endK - laneCount; k += laneCount) {
+                            final var neutronIntensity = FloatVector.fromArray(FLOAT_SPECIES, intensities, k);
+                            final var neutronHardness = FloatVector.fromArray(FLOAT_SPECIES, hardnesses, k);
+                            
+                            final var baseAbsorption = neutronHardness.mul(-fuelHardnessMultiplier).add(1.0f).mul(fuelAbsorptionTemperatureCoefficient);
+                            final var scaledAbsorption = baseAbsorption.mul(stepFuelAbsorptionCoefficient);
+                            final var controlRodBonus = scaledAbsorption.neg().add(1.0f).mul(halfRodInsertion);
+                            final var controlRodPenalty = scaledAbsorption.mul(halfRodInsertion);
+                            
+                            final var radiationAbsorbed = scaledAbsorption.add(controlRodBonus).mul(neutronIntensity);
+                            final var fertilityAbsorbed = scaledAbsorption.sub(controlRodPenalty).mul(neutronIntensity);
+                            
+                            neutronIntensity.sub(radiationAbsorbed).max(0.0f).intoArray(intensities, k);
+                            neutronHardness.mul(hardnessMultiplier).intoArray(hardnesses, k);
+                            rayFuelRFAdded = rayFuelRFAdded.add(radiationAbsorbed);
+                            rayFuelRadAdded = rayFuelRadAdded.add(fertilityAbsorbed);
+                        }
+                        if (k < endK) {
+                            final VectorMask<Float> mask = FLOAT_SPECIES.indexInRange(k, endK);
+                            final var neutronIntensity = FloatVector.fromArray(FLOAT_SPECIES, intensities, k, mask);
+                            final var neutronHardness = FloatVector.fromArray(FLOAT_SPECIES, hardnesses, k, mask);
+                            
+                            final var baseAbsorption = neutronHardness.mul(-fuelHardnessMultiplier).add(1.0f).mul(fuelAbsorptionTemperatureCoefficient);
+                            final var scaledAbsorption = baseAbsorption.mul(stepFuelAbsorptionCoefficient);
+                            final var controlRodBonus = scaledAbsorption.neg().add(1.0f).mul(halfRodInsertion);
+                            final var controlRodPenalty = scaledAbsorption.mul(halfRodInsertion);
+                            
+                            final var radiationAbsorbed = scaledAbsorption.add(controlRodBonus).mul(neutronIntensity);
+                            final var fertilityAbsorbed = scaledAbsorption.sub(controlRodPenalty).mul(neutronIntensity);
+                            
+                            neutronIntensity.sub(radiationAbsorbed).max(0.0f).intoArray(intensities, k, mask);
+                            neutronHardness.mul(hardnessMultiplier).intoArray(hardnesses, k, mask);
+                            rayFuelRFAdded = rayFuelRFAdded.add(radiationAbsorbed, mask);
+                            rayFuelRadAdded = rayFuelRadAdded.add(fertilityAbsorbed, mask);
+                        }
+                    }
+                }
+                fuelRFAdded.add(rayFuelRFAdded.reduceLanes(VectorOperators.ADD));
+                fuelRadAdded.add(rayFuelRadAdded.reduceLanes(VectorOperators.ADD));
+                caseRFAdded.add(rayCaseRFAdded.reduceLanes(VectorOperators.ADD));
+            }
+        }
+        request.result.fuelRFAdded = fuelRFAdded.sum;
+        request.result.fuelRadAdded = fuelRadAdded.sum;
+        request.result.caseRFAdded = caseRFAdded.sum;
+    }
+}
@@ -96,6 +96,11 @@ public class ReactorState implements GuiSync.IGUIPacket {
      */
     public String exhaustResourceLocation = "";
 
+    /**
+     * How far the simulation's fidelity is lowered while the server is behind, it irradiates once every 2^level ticks.
+     */
+    public int simulationFidelityLevel = 0;
+
     /**
      * The tile whose information this belongs to.
      */
@@ -133,6 +138,8 @@ public class ReactorState implements GuiSync.IGUIPacket {
         reactivityRate = (Double) data.get("reactivityRate");
         fuelUsageRate = (Double) data.get("fuelUsageRate");
         reactorOutputRate = (Double) data.get("reactorOutputRate");
+
+        simulationFidelityLevel = (Integer) data.get("simulationFidelityLevel");
     }
 
     @Nullable
@@ -167,6 +174,8 @@ public class ReactorState implements GuiSync.IGUIPacket {
         data.put("fuelUsageRate", fuelUsageRate);
         data.put("reactorOutputRate", reactorOutputRate);
 
+        data.put("simulationFidelityLevel", simulationFidelityLevel);
+
         return data;
     }
 }
@@ -0,0 +1,243 @@
+package net.roguelogix.biggerreactors.multiblocks.reactor.util;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import net.minecraft.core.SectionPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.roguelogix.biggerreactors.multiblocks.reactor.blocks.ReactorBaseBlock;
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.IReactorSimulation;
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.SimulationConfiguration;
+import net.roguelogix.biggerreactors.multiblocks.reactor.simulation.SimulationDescription;
+import net.roguelogix.biggerreactors.registries.ReactorModeratorRegistry;
+import net.roguelogix.phosphophyllite.threading.Event;
+import net.roguelogix.phosphophyllite.threading.Queues;
+import net.roguelogix.phosphophyllite.util.NonnullDefault;
+import org.joml.Vector3ic;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.Map;
+
+/**
+ * Describes a reactor's interior and builds its simulation off of the server thread
+ * The chunk sections overlapping the interior are copied when it starts, the worker only reads those copies, and the moderator registry as it was then
+ * If the previous simulation can take the new moderators in place, only the changes are found, applying them is left to the server thread
+ */
+@ParametersAreNonnullByDefault
+@NonnullDefault
+public class SimulationAssembly {
+    
+    private final SimulationDescription description;
+    private final SimulationConfiguration configuration;
+    private final SimulationDescription.Builder builder;
+    @Nullable
+    private final SimulationDescription previousDescription;
+    
+    // interior minimum in the level, and the first section overlapping it
+    private final int startX, startY, startZ;
+    private final int minSectionX, minSectionY, minSectionZ;
+    private final int sectionsY, sectionsZ;
+    // x, y, z order, null entries are all air, null once the moderators are filled in
+    @Nullable
+    private PalettedContainer<BlockState>[] sections;
+    // a reload replaces the registry on the server thread while the worker runs
+    private final Map<Block, ReactorModeratorRegistry.ModeratorProperties> moderators;
+    
+    private final Event done;
+    @Nullable
+    private IntArrayList moderatorChanges;
+    @Nullable
+    private IReactorSimulation simulation;
+    @Nullable
+    private RuntimeException failure;
+    
+    /**
+     * @param description         size, control rods, manifolds and default moderator already set, moderators are filled in from the level
+     * @param previousDescription what the current simulation was built from, null if it can't be updated in place
+     */
+    public SimulationAssembly(Level level, Vector3ic start, Vector3ic end, SimulationDescription description, SimulationConfiguration configuration, SimulationDescription.Builder builder, @Nullable SimulationDescription previousDescription) {
+        this.description = description;
+        this.configuration = configuration;
+        this.builder = builder;
+        this.previousDescription = previousDescription;
+        startX = start.x();
+        startY = start.y();
+        startZ = start.z();
+        minSectionX = SectionPos.blockToSectionCoord(start.x());
+        minSectionY = SectionPos.blockToSectionCoord(start.y());
+        minSectionZ = SectionPos.blockToSectionCoord(start.z());
+        final int sectionsX = SectionPos.blockToSectionCoord(end.x()) - minSectionX + 1;
+        sectionsY = SectionPos.blockToSectionCoord(end.y()) - minSectionY + 1;
+        sectionsZ = SectionPos.blockToSectionCoord(end.z()) - minSectionZ + 1;
+        //noinspection unchecked
+        sections = new PalettedContainer[sectionsX * sectionsY * sectionsZ];
+        for (int i = 0; i < sectionsX; i++) {
+            for (int k = 0; k < sectionsZ; k++) {
+                final var chunk = level.getChunk(minSectionX + i, minSectionZ + k);
+                for (int j = 0; j < sectionsY; j++) {
+                    final int sectionIndex = chunk.getSectionIndexFromSectionY(minSectionY + j);
+                    if (sectionIndex < 0 || sectionIndex >= chunk.getSectionsCount()) {
+                        continue;
+                    }
+                    final LevelChunkSection section = chunk.getSection(sectionIndex);
+                    if (!section.hasOnlyAir()) {
+                        sections[(i * sectionsY + j) * sectionsZ + k] = section.getStates().copy();
+                    }
+                }
+            }
+        }
+        moderators = ReactorModeratorRegistry.snapshot();
+        done = Queues.offThread.enqueue(this::run);
+    }
+    
+    /**
+     * Only builds the simulation, for when updating the previous one in place didn't work out
+     */
+    public SimulationAssembly(SimulationDescription description, SimulationConfiguration configuration, SimulationDescription.Builder builder) {
+        this.description = description;
+        this.configuration = configuration;
+        this.builder = builder;
+        this.previousDescription = null;
+        startX = startY = startZ = 0;
+        minSectionX = minSectionY = minSectionZ = 0;
+        sectionsY = sectionsZ = 0;
+        sections = null;
+        moderators = Map.of();
+        done = Queues.offThread.enqueue(this::run);
+    }
+    
+    private void run() {
+        try {
+            if (sections != null) {
+                fillModerators();
+                sections = null;
+            }
+            if (previousDescription != null) {
+                moderatorChanges = moderatorChanges(previousDescription, description);
+            }
+            if (moderatorChanges == null) {
+                simulation = builder.build(description, configuration);
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+    }
+    
+    private void fillModerators() {
+        assert sections != null;
+        final var airProperties = moderators.get(Blocks.AIR);
+        // the interior is mostly a handful of blocks, skips the registry lookup
+        Block lastBlock = Blocks.AIR;
+        ReactorModeratorRegistry.IModeratorProperties lastProperties = airProperties;
+        for (int i = 0; i < description.x(); i++) {
+            final int x = startX + i;
+            final int sectionX = SectionPos.blockToSectionCoord(x) - minSectionX;
+            for (int k = 0; k < description.z(); k++) {
+                final int z = startZ + k;
+                final int sectionXZ = (sectionX * sectionsY) * sectionsZ + SectionPos.blockToSectionCoord(z) - minSectionZ;
+                for (int j = 0; j < description.y(); j++) {
+                    final int y = startY + j;
+                    final var section = sections[sectionXZ + (SectionPos.blockToSectionCoord(y) - minSectionY) * sectionsZ];
+                    if (section == null) {
+                        description.setModeratorProperties(i, j, k, airProperties);
+                        continue;
+                    }
+                    final var block = section.get(SectionPos.sectionRelative(x), SectionPos.sectionRelative(y), SectionPos.sectionRelative(z)).getBlock();
+                    if (block instanceof ReactorBaseBlock) {
+                        continue;
+                    }
+                    if (block != lastBlock) {
+                        lastBlock = block;
+                        lastProperties = moderators.get(block);
+                    }
+                    description.setModeratorProperties(i, j, k, lastProperties);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Positions (x, y, z triples) where the moderator changed, if moderators are all that changed
+     *
+     * @return null if the simulation needs to be rebuilt
+     */
+    @Nullable
+    public static IntArrayList moderatorChanges(SimulationDescription oldDescription, SimulationDescription newDescription) {
+        if (oldDescription.x() != newDescription.x() || oldDescription.y() != newDescription.y() || oldDescription.z() != newDescription.z()) {
+            return null;
+        }
+        if (oldDescription.defaultModeratorProperties() != newDescription.defaultModeratorProperties()) {
+            return null;
+        }
+        final var changedModerators = new IntArrayList();
+        for (int i = 0; i < newDescription.x(); i++) {
+            for (int k = 0; k < newDescription.z(); k++) {
+                if (oldDescription.isControlRodAt(i, k) != newDescription.isControlRodAt(i, k)) {
+                    return null;
+                }
+                for (int j = 0; j < newDescription.y(); j++) {
+                    if (oldDescription.isManifoldAt(i, j, k) != newDescription.isManifoldAt(i, j, k)) {
+                        return null;
+                    }
+                    if (oldDescription.moderatorPropertiesAt(i, j, k) != newDescription.moderatorPropertiesAt(i, j, k)) {
+                        changedModerators.add(i);
+                        changedModerators.add(j);
+                        changedModerators.add(k);
+                    }
+                }
+            }
+        }
+        return changedModerators;
+    }
+    
+    public boolean done() {
+        return done.ready();
+    }
+    
+    private void join() {
+        done.join();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+    
+    /**
+     * Waits for the worker, rethrows anything it threw
+     */
+    public SimulationDescription description() {
+        join();
+        return description;
+    }
+    
+    public SimulationConfiguration configuration() {
+        return configuration;
+    }
+    
+    public SimulationDescription.Builder builder() {
+        return builder;
+    }
+    
+    @Nullable
+    public SimulationDescription previousDescription() {
+        return previousDescription;
+    }
+    
+    /**
+     * null if the simulation wasn't built, because the previous one can be updated with {@link #moderatorChanges()}
+     */
+    @Nullable
+    public IReactorSimulation simulation() {
+        join();
+        return simulation;
+    }
+    
+    @Nullable
+    public IntArrayList moderatorChanges() {
+        join();
+        return moderatorChanges;
+    }
+}
@@ -27,6 +27,7 @@ import net.roguelogix.phosphophyllite.registry.OnModLoad;
 import net.roguelogix.phosphophyllite.robn.ROBNObject;
 import net.roguelogix.phosphophyllite.serialization.PhosphophylliteCompound;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -103,7 +104,8 @@ public class ReactorModeratorRegistry {
         
     }
     
-    private final static HashMap<Block, ModeratorProperties> registry = new HashMap<>();
+    // replaced whole when reloaded and never changed after, so a snapshot of it can be read off of the server thread
+    private static volatile Map<Block, ModeratorProperties> registry = Map.of();
     
     public static boolean isBlockAllowed(Block block) {
         return registry.containsKey(block);
@@ -113,6 +115,13 @@ public class ReactorModeratorRegistry {
         return registry.get(block);
     }
     
+    /**
+     * Every block's properties as currently loaded, a reload replaces it rather than changing it
+     */
+    public static Map<Block, ModeratorProperties> snapshot() {
+        return registry;
+    }
+    
     // TODO: unify these names across all registries
     private enum RegistryType {
         tag,
@@ -146,7 +155,7 @@ public class ReactorModeratorRegistry {
     
     public static void loadRegistry() {
         BiggerReactors.LOGGER.info("Loading reactor moderators");
-        registry.clear();
+        final var moderators = new HashMap<Block, ModeratorProperties>();
         
         List<ReactorModeratorJsonData> data = dataLoader.loadAll(new ResourceLocation("biggerreactors:ebcr/moderators"));
         BiggerReactors.LOGGER.info("Loaded " + data.size() + " moderator data entries");
@@ -160,14 +169,14 @@ public class ReactorModeratorRegistry {
                     var blockTagOptional = BuiltInRegistries.BLOCK.getTag(TagKey.create(BuiltInRegistries.BLOCK.key(), moderatorData.location));
                     blockTagOptional.ifPresent(holders -> holders.forEach(blockHolder -> {
                         var element = blockHolder.value();
-                        registry.put(element, properties);
+                        moderators.put(element, properties);
                         BiggerReactors.LOGGER.debug("Loaded moderator " + ForgeRegistries.BLOCKS.getKey(element));
                     }));
                 }
                 case registry -> {
                     // cant check against air, because air is a valid thing to load
                     if (ForgeRegistries.BLOCKS.containsKey(moderatorData.location)) {
-                        registry.put(ForgeRegistries.BLOCKS.getValue(moderatorData.location), properties);
+                        moderators.put(ForgeRegistries.BLOCKS.getValue(moderatorData.location), properties);
                         BiggerReactors.LOGGER.debug("Loaded moderator " + moderatorData.location);
                     }
                 }
@@ -176,7 +185,7 @@ public class ReactorModeratorRegistry {
                     fluidTagOptional.ifPresent(holders -> holders.forEach(fluidHolder -> {
                         var element = fluidHolder.value();
                         Block elementBlock = element.defaultFluidState().createLegacyBlock().getBlock();
-                        registry.put(elementBlock, properties);
+                        moderators.put(elementBlock, properties);
                         BiggerReactors.LOGGER.debug("Loaded moderator " + ForgeRegistries.FLUIDS.getKey(element));
                     }));
                 }
@@ -186,12 +195,13 @@ public class ReactorModeratorRegistry {
                         Fluid fluid = ForgeRegistries.FLUIDS.getValue(moderatorData.location);
                         assert fluid != null;
                         Block block = fluid.defaultFluidState().createLegacyBlock().getBlock();
-                        registry.put(block, properties);
+                        moderators.put(block, properties);
                         BiggerReactors.LOGGER.debug("Loaded moderator " + moderatorData.location);
                     }
                 }
             }
         }
+        registry = Collections.unmodifiableMap(moderators);
         BiggerReactors.LOGGER.info("Loaded " + registry.size() + " moderator entries");
     }
     